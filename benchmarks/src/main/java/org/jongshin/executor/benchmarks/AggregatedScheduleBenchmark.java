@@ -0,0 +1,87 @@
+package org.jongshin.executor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jongshin.executor.data.CompositeKey;
+import org.jongshin.executor.data.ScheduledExecution;
+import org.jongshin.executor.oberservers.IObserver;
+import org.jongshin.executor.service.IProcessorService;
+import org.jongshin.executor.service.ProcessorServiceImpl;
+import org.jongshin.executor.task.SingleTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code schedule()} of tasks with {@link CompositeKey}, which are
+ * aggregated under one major key. One operation schedules all minors of a new
+ * major; the aggregated task then runs them in the background.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class AggregatedScheduleBenchmark {
+
+	private final AtomicLong majors = new AtomicLong();
+	private final IObserver<String> observer = new NoopObserver<>();
+
+	@Param({ "10", "100", "1000", "10000" })
+	private int minors;
+
+	private IProcessorService processorService;
+	private String[] minorKeys;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		processorService = new ProcessorServiceImpl();
+		minorKeys = new String[minors];
+		for (int i = 0; i < minors; i++) {
+			minorKeys[i] = "minor-" + i;
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		processorService.shutdown();
+	}
+
+	@Benchmark
+	public ScheduledExecution scheduleAggregated() {
+		String major = "major-" + majors.incrementAndGet();
+		ScheduledExecution execution = null;
+		for (String minor : minorKeys) {
+			execution = processorService.schedule(10, TimeUnit.MILLISECONDS,
+					new MinorTask(new CompositeKey<>(major, minor)), observer);
+		}
+		return execution;
+	}
+
+	static class MinorTask extends SingleTask<CompositeKey<String>, String> {
+
+		MinorTask(CompositeKey<String> key) {
+			super(key);
+		}
+
+		@Override
+		public String process() {
+			return getKey().getMajor();
+		}
+	}
+}
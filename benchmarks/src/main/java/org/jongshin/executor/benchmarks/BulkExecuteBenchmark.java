@@ -0,0 +1,91 @@
+package org.jongshin.executor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jongshin.executor.data.Execution;
+import org.jongshin.executor.oberservers.IObserver;
+import org.jongshin.executor.service.IProcessorService;
+import org.jongshin.executor.service.ProcessorServiceConfig;
+import org.jongshin.executor.service.ProcessorServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to execute a batch of trivial tasks on the bounded
+ * executor until all of them have completed. {@code executeLoop} submits the
+ * batch by one {@code execute()} per task, {@code executeAll} submits it by
+ * one {@code executeAll()}, which hands the tasks off one by one as well, so
+ * both are expected to be on par.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkExecuteBenchmark {
+
+	@Param({ "100", "10000" })
+	private int batchSize;
+
+	private final AtomicLong keys = new AtomicLong();
+	private final IObserver<Long> observer = new NoopObserver<>();
+	private IProcessorService processorService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		processorService = new ProcessorServiceImpl(
+				ProcessorServiceConfig.builder().maxWorkers(Runtime.getRuntime().availableProcessors())
+						.queueCapacity(batchSize).build());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		processorService.shutdown();
+	}
+
+	@Benchmark
+	public void executeLoop() {
+		List<Execution> executions = new ArrayList<>(batchSize);
+		for (EchoTask task : newBatch()) {
+			executions.add(processorService.execute(task, observer));
+		}
+		awaitAll(executions);
+	}
+
+	@Benchmark
+	public void executeAll() {
+		awaitAll(processorService.executeAll(newBatch(), observer));
+	}
+
+	private List<EchoTask> newBatch() {
+		List<EchoTask> batch = new ArrayList<>(batchSize);
+		for (int i = 0; i < batchSize; i++) {
+			batch.add(new EchoTask(keys.incrementAndGet()));
+		}
+		return batch;
+	}
+
+	private void awaitAll(List<Execution> executions) {
+		for (Execution execution : executions) {
+			execution.getResult().join();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package org.jongshin.executor.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jongshin.executor.oberservers.IObserver;
+import org.jongshin.executor.service.IProcessorService;
+import org.jongshin.executor.service.ProcessorServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Samples the latency of {@code cancel()}: of a schedule registered long ago,
+ * and of one scheduled right before it is canceled.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class CancelBenchmark {
+
+	private static final int REGISTERED_KEYS = 100_000;
+
+	private final AtomicLong keys = new AtomicLong(REGISTERED_KEYS);
+	private final IObserver<Long> observer = new NoopObserver<>();
+	private IProcessorService processorService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		processorService = new ProcessorServiceImpl();
+		for (long i = 0; i < REGISTERED_KEYS; i++) {
+			processorService.schedule(1, TimeUnit.HOURS, new EchoTask(i), observer);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		processorService.shutdown();
+	}
+
+	@Benchmark
+	public void cancelRegistered() {
+		processorService.cancel((long) ThreadLocalRandom.current().nextInt(REGISTERED_KEYS));
+	}
+
+	@Benchmark
+	public void scheduleThenCancel() {
+		long key = keys.incrementAndGet();
+		processorService.schedule(1, TimeUnit.HOURS, new EchoTask(key), observer);
+		processorService.cancel(key);
+	}
+}
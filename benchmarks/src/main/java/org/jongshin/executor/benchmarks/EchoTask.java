@@ -0,0 +1,26 @@
+package org.jongshin.executor.benchmarks;
+
+import org.jongshin.executor.task.SingleTask;
+import org.jongshin.executor.task.TaskPriority;
+
+/**
+ * The task, which returns its key.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+class EchoTask extends SingleTask<Long, Long> {
+
+	EchoTask(Long key) {
+		super(key);
+	}
+
+	EchoTask(Long key, TaskPriority priority) {
+		super(key, priority);
+	}
+
+	@Override
+	public Long process() {
+		return getKey();
+	}
+}
@@ -0,0 +1,82 @@
+package org.jongshin.executor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jongshin.executor.data.Execution;
+import org.jongshin.executor.oberservers.IObserver;
+import org.jongshin.executor.service.IProcessorService;
+import org.jongshin.executor.service.ProcessorServiceConfig;
+import org.jongshin.executor.service.ProcessorServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code execute()} throughput with 1, 8 and 64 submitting threads.
+ * Tasks are trivial, so the score is dominated by registration and hand-off
+ * to the executor. Running with and without metrics shows their cost per
+ * task.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecuteBenchmark {
+
+	@Param({ "false", "true" })
+	private boolean metricsEnabled;
+
+	private final AtomicLong keys = new AtomicLong();
+	private final IObserver<Long> observer = new NoopObserver<>();
+	private IProcessorService processorService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		processorService = new ProcessorServiceImpl(
+				ProcessorServiceConfig.builder().metricsEnabled(metricsEnabled).build());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		processorService.shutdown();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Execution execute1() {
+		return execute();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public Execution execute8() {
+		return execute();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public Execution execute64() {
+		return execute();
+	}
+
+	private Execution execute() {
+		return processorService.execute(new EchoTask(keys.incrementAndGet()), observer);
+	}
+}
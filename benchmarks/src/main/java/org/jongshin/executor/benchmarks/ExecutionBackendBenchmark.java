@@ -0,0 +1,92 @@
+package org.jongshin.executor.benchmarks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jongshin.executor.service.ExecutionBackend;
+import org.jongshin.executor.service.ProcessorServiceConfig;
+import org.jongshin.executor.service.ProcessorServiceImpl;
+import org.jongshin.executor.task.SingleTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares platform and virtual threads running a burst of tasks, which block
+ * for a while, as I/O bound tasks do. One operation is the whole burst.
+ * {@link ExecutionBackend#VIRTUAL_THREADS} requires the benchmark to run on
+ * Java 21 or later.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ExecutionBackendBenchmark {
+
+	private static final AtomicLong KEYS = new AtomicLong();
+
+	@Param({ "PLATFORM_THREADS", "VIRTUAL_THREADS" })
+	private ExecutionBackend backend;
+
+	@Param({ "1000", "10000" })
+	private int concurrentTasks;
+
+	@Param({ "10" })
+	private long blockMillis;
+
+	private ProcessorServiceImpl processorService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		processorService = new ProcessorServiceImpl(ProcessorServiceConfig.builder().executionBackend(backend).build());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		processorService.shutdown();
+	}
+
+	@Benchmark
+	public Void blockingBurst() {
+		CompletableFuture<?>[] results = new CompletableFuture<?>[concurrentTasks];
+		for (int i = 0; i < concurrentTasks; i++) {
+			results[i] = processorService.submit(new BlockingTask(KEYS.incrementAndGet(), blockMillis));
+		}
+		return CompletableFuture.allOf(results).join();
+	}
+
+	static class BlockingTask extends SingleTask<Long, Long> {
+		private final long blockMillis;
+
+		BlockingTask(Long key, long blockMillis) {
+			super(key);
+			this.blockMillis = blockMillis;
+		}
+
+		@Override
+		public Long process() {
+			try {
+				Thread.sleep(blockMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return getKey();
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package org.jongshin.executor.benchmarks;
+
+import org.jongshin.executor.oberservers.IObserver;
+
+/**
+ * The observer, which ignores notifications.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+class NoopObserver<V> implements IObserver<V> {
+
+	@Override
+	public void notifyCompleted(V data) {
+	}
+
+	@Override
+	public void notifyCanceled() {
+	}
+
+	@Override
+	public void notifyFailed(Throwable cause) {
+	}
+}
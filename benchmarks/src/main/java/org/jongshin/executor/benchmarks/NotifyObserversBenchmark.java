@@ -0,0 +1,68 @@
+package org.jongshin.executor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jongshin.executor.data.Execution;
+import org.jongshin.executor.data.ScheduledExecution;
+import org.jongshin.executor.data.TaskResult;
+import org.jongshin.executor.data.TaskStatus;
+import org.jongshin.executor.oberservers.ObserverManagerImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures synchronous {@code notifyObservers} fan-out to 1, 10 and 100
+ * observers. The result belongs to a run of a repeatable schedule, so the
+ * observers stay registered between operations.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotifyObserversBenchmark {
+
+	@Param({ "1", "10", "100" })
+	private int observers;
+
+	private ObserverManagerImpl observerManager;
+	private TaskResult<Long> taskResult;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		observerManager = new ObserverManagerImpl();
+		EchoTask task = new EchoTask(1L);
+		for (int i = 0; i < observers; i++) {
+			observerManager.add(task, new NoopObserver<>());
+		}
+		Execution execution = new Execution();
+		execution.setParentExecution(new ScheduledExecution(1, 1, TimeUnit.SECONDS));
+		execution.setTaskStatus(TaskStatus.COMPLETED);
+		taskResult = new TaskResult<>(task, 1L, execution);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		observerManager.shutdown();
+	}
+
+	@Benchmark
+	public void notifyObservers() {
+		observerManager.notifyObservers(taskResult);
+	}
+}
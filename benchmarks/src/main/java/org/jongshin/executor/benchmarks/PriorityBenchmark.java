@@ -0,0 +1,106 @@
+package org.jongshin.executor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jongshin.executor.data.TaskRejectedException;
+import org.jongshin.executor.service.OverloadPolicy;
+import org.jongshin.executor.service.ProcessorServiceConfig;
+import org.jongshin.executor.service.ProcessorServiceImpl;
+import org.jongshin.executor.task.SingleTask;
+import org.jongshin.executor.task.TaskPriority;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Samples the latency between submission and completion of a trivial task,
+ * while a background thread keeps the execution queue saturated with busy
+ * tasks of low priority. The p99 of a {@link TaskPriority#HIGH} probe stays
+ * around the run time of one busy task, the one of a
+ * {@link TaskPriority#LOW} probe grows with the queue depth.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriorityBenchmark {
+
+	private static final int WORKERS = 2;
+	private static final int SATURATED_QUEUE_DEPTH = 512;
+	private static final long BUSY_TOKENS = 1000;
+
+	@Param({ "HIGH", "LOW" })
+	private TaskPriority probePriority;
+
+	private final AtomicLong keys = new AtomicLong();
+	private ProcessorServiceImpl processorService;
+	private volatile boolean saturating;
+	private Thread saturator;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		processorService = new ProcessorServiceImpl(ProcessorServiceConfig.builder().maxWorkers(WORKERS)
+				.queueCapacity(SATURATED_QUEUE_DEPTH * 2).overloadPolicy(OverloadPolicy.REJECT).build());
+		saturating = true;
+		saturator = new Thread(this::saturate, "priority-benchmark-saturator");
+		saturator.setDaemon(true);
+		saturator.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		saturating = false;
+		saturator.join();
+		processorService.shutdown();
+	}
+
+	private void saturate() {
+		while (saturating) {
+			if (processorService.getQueueDepth() < SATURATED_QUEUE_DEPTH) {
+				try {
+					processorService.submit(new BusyTask(keys.incrementAndGet()));
+				} catch (TaskRejectedException e) {
+					LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+				}
+			} else {
+				LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+			}
+		}
+	}
+
+	@Benchmark
+	public Long submitProbe() {
+		return processorService.submit(new EchoTask(keys.incrementAndGet(), probePriority)).join();
+	}
+
+	static class BusyTask extends SingleTask<Long, Long> {
+
+		BusyTask(Long key) {
+			super(key, TaskPriority.LOW);
+		}
+
+		@Override
+		public Long process() {
+			Blackhole.consumeCPU(BUSY_TOKENS);
+			return getKey();
+		}
+	}
+}
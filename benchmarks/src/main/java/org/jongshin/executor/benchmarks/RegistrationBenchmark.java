@@ -0,0 +1,113 @@
+package org.jongshin.executor.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.jongshin.executor.data.Execution;
+import org.jongshin.executor.oberservers.IObserver;
+import org.jongshin.executor.oberservers.ObserverManagerImpl;
+import org.jongshin.executor.service.IProcessorService;
+import org.jongshin.executor.service.ProcessorServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures first-time registration under contention with 1, 8 and 64
+ * threads. {@code execute} draws keys from a key space shared by all threads,
+ * so a small key space makes threads race to register the same task.
+ * {@code bind} binds the first observer of a task from the same key space and
+ * unbinds it again, so every operation takes the first-time path of the
+ * observer manager. The score should grow with the number of threads rather
+ * than flatten out.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistrationBenchmark {
+
+	@Param({ "64", "1000000" })
+	private int keySpace;
+
+	private final IObserver<Long> observer = new NoopObserver<>();
+	private IProcessorService processorService;
+	private ObserverManagerImpl observerManager;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		processorService = new ProcessorServiceImpl();
+		observerManager = new ObserverManagerImpl();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		processorService.shutdown();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Execution execute1() {
+		return execute();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public Execution execute8() {
+		return execute();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public Execution execute64() {
+		return execute();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void bind1() {
+		bind();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public void bind8() {
+		bind();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public void bind64() {
+		bind();
+	}
+
+	private Execution execute() {
+		return processorService.execute(newTask(), observer);
+	}
+
+	private void bind() {
+		EchoTask task = newTask();
+		observerManager.add(task, observer);
+		observerManager.removeAll(task);
+	}
+
+	private EchoTask newTask() {
+		return new EchoTask((long) ThreadLocalRandom.current().nextInt(keySpace));
+	}
+}
@@ -0,0 +1,91 @@
+package org.jongshin.executor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.jongshin.executor.service.TimingWheelScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares schedule and cancel throughput of
+ * {@link java.util.concurrent.ScheduledThreadPoolExecutor} and
+ * {@link TimingWheelScheduler}, while the scheduler already holds many
+ * periodic schedules.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(8)
+@State(Scope.Benchmark)
+public class SchedulerBenchmark {
+
+	private static final Runnable NOOP = () -> {
+	};
+
+	@Param({ "SCHEDULED_THREAD_POOL", "TIMING_WHEEL" })
+	private String backend;
+
+	@Param({ "10000", "1000000" })
+	private int preloadedSchedules;
+
+	private ScheduledExecutorService scheduler;
+	private List<ScheduledFuture<?>> preloaded;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		if ("TIMING_WHEEL".equals(backend)) {
+			scheduler = new TimingWheelScheduler(10, TimeUnit.MILLISECONDS, 4);
+		} else {
+			scheduler = Executors.newScheduledThreadPool(4);
+		}
+		preloaded = new ArrayList<>(preloadedSchedules);
+		for (int i = 0; i < preloadedSchedules; i++) {
+			preloaded.add(scheduler.scheduleWithFixedDelay(NOOP, 1 + i % 3600, 3600, TimeUnit.SECONDS));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	@Benchmark
+	public boolean scheduleAndCancel() {
+		long delay = 1 + ThreadLocalRandom.current().nextInt(3600);
+		return scheduler.schedule(NOOP, delay, TimeUnit.SECONDS).cancel(false);
+	}
+
+	@Benchmark
+	public boolean reschedule() {
+		int index = ThreadLocalRandom.current().nextInt(preloaded.size());
+		ScheduledFuture<?> future = preloaded.get(index);
+		future.cancel(false);
+		ScheduledFuture<?> rescheduled = scheduler.scheduleWithFixedDelay(NOOP, 1 + index % 3600, 3600,
+				TimeUnit.SECONDS);
+		preloaded.set(index, rescheduled);
+		return rescheduled.isDone();
+	}
+}
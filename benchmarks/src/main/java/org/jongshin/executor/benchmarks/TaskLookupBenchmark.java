@@ -0,0 +1,80 @@
+package org.jongshin.executor.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.jongshin.executor.data.TaskStatus;
+import org.jongshin.executor.oberservers.IObserver;
+import org.jongshin.executor.service.IProcessorService;
+import org.jongshin.executor.service.ProcessorServiceImpl;
+import org.jongshin.executor.task.SingleTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of looking up a task by key against the number of
+ * registered schedules. The lookup cost is expected to stay flat.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TaskLookupBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	private int registeredKeys;
+
+	private IProcessorService processorService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		processorService = new ProcessorServiceImpl();
+		IObserver<String> observer = new NoopObserver<>();
+		for (int i = 0; i < registeredKeys; i++) {
+			processorService.schedule(1, TimeUnit.HOURS, new NoopTask(i), observer);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		processorService.shutdown();
+	}
+
+	@Benchmark
+	public TaskStatus getTaskStatus() {
+		return processorService.getTaskStatus(ThreadLocalRandom.current().nextInt(registeredKeys));
+	}
+
+	@Benchmark
+	public boolean isCanceled() {
+		return processorService.isCanceled(ThreadLocalRandom.current().nextInt(registeredKeys));
+	}
+
+	static class NoopTask extends SingleTask<Integer, String> {
+
+		NoopTask(Integer key) {
+			super(key);
+		}
+
+		@Override
+		public String process() {
+			return "";
+		}
+	}
+}
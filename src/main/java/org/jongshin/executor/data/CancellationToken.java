@@ -0,0 +1,165 @@
+package org.jongshin.executor.data;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Signals the cancellation of an execution to the running task. A task polls
+ * {@link #isCancellationRequested()} or calls
+ * {@link #throwIfCancellationRequested()} between units of work, or registers
+ * a callback to release what it waits on. The token of the task running in
+ * the current thread is returned by {@link #current()}.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+public class CancellationToken {
+	private static final Logger LOGGER = Logger.getLogger(CancellationToken.class);
+
+	/**
+	 * The token of code, which isn't run by the processor. It is never
+	 * canceled.
+	 */
+	public static final CancellationToken NONE = new CancellationToken();
+
+	private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+	private volatile boolean cancellationRequested;
+	private final List<Runnable> callbacks;
+	private Thread runner;
+
+	public CancellationToken() {
+		callbacks = new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * Returns the token of the task running in the current thread, or
+	 * {@link #NONE} if the current thread doesn't run a task.
+	 */
+	public static CancellationToken current() {
+		CancellationToken token = CURRENT.get();
+		return token == null ? NONE : token;
+	}
+
+	public boolean isCancellationRequested() {
+		return cancellationRequested;
+	}
+
+	/**
+	 * @throws TaskCanceledException
+	 *             if the cancellation has been requested
+	 */
+	public void throwIfCancellationRequested() {
+		if (cancellationRequested) {
+			throw new TaskCanceledException("Task has been canceled");
+		}
+	}
+
+	/**
+	 * Registers the callback, which is run once the cancellation is requested.
+	 * The callback is run immediately in the calling thread if the
+	 * cancellation has been already requested.
+	 *
+	 * @param callback
+	 *            the callback to be registered
+	 * @throws NullPointerException
+	 *             if {@code callback} is {@code null}
+	 */
+	public void addCallback(Runnable callback) {
+		Preconditions.checkNotNull(callback, "callback is null");
+		if (this == NONE) {
+			return;
+		}
+		callbacks.add(callback);
+		if (cancellationRequested && callbacks.remove(callback)) {
+			run(callback);
+		}
+	}
+
+	/**
+	 * Removes the callback, which hasn't been run yet.
+	 *
+	 * @param callback
+	 *            the callback to be removed
+	 * @return {@code true} if the callback has been registered
+	 */
+	public boolean removeCallback(Runnable callback) {
+		return callbacks.remove(callback);
+	}
+
+	/**
+	 * Requests the cancellation. Registered callbacks are run in the calling
+	 * thread, and the thread running the task is interrupted if the task has
+	 * been attached as interruptible. Subsequent calls have no effect.
+	 */
+	public void cancel() {
+		if (this == NONE) {
+			return;
+		}
+		synchronized (this) {
+			if (cancellationRequested) {
+				return;
+			}
+			cancellationRequested = true;
+			if (runner != null) {
+				runner.interrupt();
+			}
+		}
+		for (Runnable callback : callbacks) {
+			if (callbacks.remove(callback)) {
+				run(callback);
+			}
+		}
+	}
+
+	/**
+	 * Makes the token current for the calling thread, which is about to run
+	 * the task.
+	 *
+	 * @param interruptible
+	 *            if {@code true} the calling thread is interrupted when the
+	 *            cancellation is requested until {@link #detach()} is called
+	 */
+	public void attach(boolean interruptible) {
+		CURRENT.set(this);
+		if (interruptible) {
+			synchronized (this) {
+				runner = Thread.currentThread();
+			}
+		}
+	}
+
+	/**
+	 * Reverts {@link #attach(boolean)} once the task has finished. An
+	 * interrupt caused by the cancellation is cleared, so that it doesn't leak
+	 * to the next task of the thread.
+	 */
+	public void detach() {
+		CURRENT.remove();
+		boolean interrupted;
+		synchronized (this) {
+			interrupted = runner != null && cancellationRequested;
+			runner = null;
+		}
+		if (interrupted) {
+			Thread.interrupted();
+		}
+	}
+
+	private void run(Runnable callback) {
+		try {
+			callback.run();
+		} catch (RuntimeException e) {
+			LOGGER.error("Cancellation callback failed", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "CancellationToken [cancellationRequested=" + cancellationRequested + "]";
+	}
+}
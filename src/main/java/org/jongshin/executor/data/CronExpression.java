@@ -0,0 +1,426 @@
+package org.jongshin.executor.data;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Locale;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Cron expression, which is compiled once into bit sets of the allowed values
+ * of its fields. Computing the next fire time walks the bit sets with
+ * primitive calendar arithmetic and doesn't allocate, except once per offset
+ * change of the time zone.
+ * <p>
+ * The expression consists of 5 fields {@code minute hour day-of-month month
+ * day-of-week}, or of 6 fields if {@code second} precedes them. A field is
+ * {@code *}, a value, a range {@code a-b}, a step {@code *}{@code /n},
+ * {@code a/n} or {@code a-b/n}, or a list of them separated by commas.
+ * Months and days of week may be given by their English abbreviations,
+ * {@code 0} and {@code 7} both mean Sunday and {@code ?} is the same as
+ * {@code *}. If both day-of-month and day-of-week are restricted, a day
+ * matching either of them fires, as in the classic cron. The macros
+ * {@code @yearly}, {@code @monthly}, {@code @weekly}, {@code @daily} and
+ * {@code @hourly} are supported.
+ * <p>
+ * A fire time falling into a daylight saving gap fires after the gap, a fire
+ * time repeated by a daylight saving overlap fires once.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+public final class CronExpression {
+
+	/**
+	 * The fire time returned by {@link #nextFireMillis(long)} if the expression
+	 * doesn't fire anymore.
+	 */
+	public static final long NEVER = Long.MIN_VALUE;
+
+	private static final String[] MONTH_NAMES = { "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP",
+			"OCT", "NOV", "DEC" };
+	private static final String[] DAY_OF_WEEK_NAMES = { "SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT" };
+	private static final long SECONDS_PER_DAY = 86400;
+	// the calendar repeats itself every 400 years
+	private static final int MAX_SEARCH_YEARS = 400;
+
+	private final String expression;
+	private final ZoneId zone;
+	private final ZoneRules rules;
+	private final long seconds;
+	private final long minutes;
+	private final long hours;
+	private final long daysOfMonth;
+	private final long months;
+	private final long daysOfWeek;
+	private final boolean dayOfMonthRestricted;
+	private final boolean dayOfWeekRestricted;
+	private volatile OffsetWindow offsetWindow;
+
+	private CronExpression(String expression, ZoneId zone) {
+		this.expression = expression;
+		this.zone = zone;
+		this.rules = zone.getRules();
+		String[] fields = expandMacro(expression).trim().split("\\s+");
+		if (fields.length != 5 && fields.length != 6) {
+			throw illegal(expression, "5 or 6 fields expected");
+		}
+		int i = 0;
+		seconds = fields.length == 6 ? parseField(expression, fields[i++], 0, 59, null) : 1L;
+		minutes = parseField(expression, fields[i++], 0, 59, null);
+		hours = parseField(expression, fields[i++], 0, 23, null);
+		String dayOfMonthField = fields[i++];
+		daysOfMonth = parseField(expression, dayOfMonthField, 1, 31, null);
+		months = parseField(expression, fields[i++], 1, 12, MONTH_NAMES);
+		String dayOfWeekField = fields[i];
+		long parsedDaysOfWeek = parseField(expression, dayOfWeekField, 0, 7, DAY_OF_WEEK_NAMES);
+		// 7 is another name of Sunday
+		daysOfWeek = (parsedDaysOfWeek | parsedDaysOfWeek >>> 7) & 0x7F;
+		dayOfMonthRestricted = !isWildcard(dayOfMonthField);
+		dayOfWeekRestricted = !isWildcard(dayOfWeekField);
+		offsetWindow = newOffsetWindow(0);
+	}
+
+	/**
+	 * Compiles the expression evaluated in the default time zone.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the expression is malformed
+	 * @throws NullPointerException
+	 *             if {@code expression} is {@code null}
+	 */
+	public static CronExpression parse(String expression) {
+		return parse(expression, ZoneId.systemDefault());
+	}
+
+	/**
+	 * Compiles the expression evaluated in the specified time zone.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the expression is malformed
+	 * @throws NullPointerException
+	 *             if
+	 *             <li>{@code expression} is {@code null}</li>
+	 *             <li>{@code zone} is {@code null}</li>
+	 */
+	public static CronExpression parse(String expression, ZoneId zone) {
+		Preconditions.checkNotNull(expression, "expression is null");
+		Preconditions.checkNotNull(zone, "zone is null");
+		return new CronExpression(expression, zone);
+	}
+
+	public String getExpression() {
+		return expression;
+	}
+
+	public ZoneId getZone() {
+		return zone;
+	}
+
+	/**
+	 * Returns the first fire time strictly after the specified time, in
+	 * milliseconds since the epoch with a precision of one second, or
+	 * {@link #NEVER}. The method is thread-safe.
+	 *
+	 * @param afterEpochMillis
+	 *            the time in milliseconds since the epoch
+	 */
+	public long nextFireMillis(long afterEpochMillis) {
+		long afterSecond = Math.floorDiv(afterEpochMillis, 1000);
+		long localSecond = afterSecond + offsetSeconds(afterSecond) + 1;
+		for (;;) {
+			localSecond = nextLocalSecond(localSecond);
+			if (localSecond == NEVER) {
+				return NEVER;
+			}
+			long epochSecond = toEpochSecond(localSecond);
+			if (epochSecond > afterSecond) {
+				return epochSecond * 1000;
+			}
+			localSecond++;
+		}
+	}
+
+	/**
+	 * Returns the first local time, which is not before the specified one and
+	 * matches all fields, or {@link #NEVER}.
+	 */
+	private long nextLocalSecond(long localSecond) {
+		long epochDay = Math.floorDiv(localSecond, SECONDS_PER_DAY);
+		int secondOfDay = (int) Math.floorMod(localSecond, SECONDS_PER_DAY);
+		// civil date of the epoch day, see http://howardhinnant.github.io/date_algorithms.html
+		long z = epochDay + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long shiftedMonth = (5 * dayOfYear + 2) / 153;
+		int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+		int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		int hour = secondOfDay / 3600;
+		int minute = secondOfDay / 60 % 60;
+		int second = secondOfDay % 60;
+		long lastYear = year + MAX_SEARCH_YEARS;
+		for (;;) {
+			if (month > 12) {
+				month = 1;
+				if (++year > lastYear) {
+					return NEVER;
+				}
+			}
+			int nextMonth = nextBit(months, month);
+			if (nextMonth < 0) {
+				month = 13;
+				day = 1;
+				hour = minute = second = 0;
+				continue;
+			}
+			if (nextMonth != month) {
+				month = nextMonth;
+				day = 1;
+				hour = minute = second = 0;
+			}
+			if (day > daysInMonth(year, month)) {
+				month++;
+				day = 1;
+				hour = minute = second = 0;
+				continue;
+			}
+			if (!isDayMatched(year, month, day)) {
+				day++;
+				hour = minute = second = 0;
+				continue;
+			}
+			int nextHour = nextBit(hours, hour);
+			if (nextHour < 0) {
+				day++;
+				hour = minute = second = 0;
+				continue;
+			}
+			if (nextHour != hour) {
+				hour = nextHour;
+				minute = second = 0;
+			}
+			int nextMinute = nextBit(minutes, minute);
+			if (nextMinute < 0) {
+				hour++;
+				minute = second = 0;
+				continue;
+			}
+			if (nextMinute != minute) {
+				minute = nextMinute;
+				second = 0;
+			}
+			int nextSecond = nextBit(seconds, second);
+			if (nextSecond < 0) {
+				minute++;
+				second = 0;
+				continue;
+			}
+			return toEpochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + nextSecond;
+		}
+	}
+
+	private boolean isDayMatched(long year, int month, int day) {
+		boolean dayOfMonthMatched = (daysOfMonth & 1L << day) != 0;
+		int dayOfWeek = (int) Math.floorMod(toEpochDay(year, month, day) + 4, 7);
+		boolean dayOfWeekMatched = (daysOfWeek & 1L << dayOfWeek) != 0;
+		if (dayOfMonthRestricted && dayOfWeekRestricted) {
+			return dayOfMonthMatched || dayOfWeekMatched;
+		}
+		return dayOfMonthMatched && dayOfWeekMatched;
+	}
+
+	/**
+	 * Converts the local time to the epoch second. The offsets a day before
+	 * and after it differ only around a transition, which is then resolved
+	 * to the earlier offset of an overlap, or shifted forward out of a gap.
+	 */
+	private long toEpochSecond(long localSecond) {
+		int offsetBefore = offsetSeconds(localSecond - SECONDS_PER_DAY);
+		int offsetAfter = offsetSeconds(localSecond + SECONDS_PER_DAY);
+		long epochSecond = localSecond - offsetBefore;
+		if (offsetBefore == offsetAfter || offsetSeconds(epochSecond) == offsetBefore) {
+			return epochSecond;
+		}
+		long laterEpochSecond = localSecond - offsetAfter;
+		return offsetSeconds(laterEpochSecond) == offsetAfter ? laterEpochSecond : epochSecond;
+	}
+
+	private int offsetSeconds(long epochSecond) {
+		OffsetWindow window = offsetWindow;
+		if (epochSecond < window.from || epochSecond >= window.nextTo) {
+			window = newOffsetWindow(epochSecond);
+			offsetWindow = window;
+		}
+		return epochSecond < window.to ? window.offsetSeconds : window.nextOffsetSeconds;
+	}
+
+	/**
+	 * Returns the period of the zone's offset around the specified time and
+	 * the period following it, so that lookups on both sides of a transition
+	 * don't replace each other's window.
+	 */
+	private OffsetWindow newOffsetWindow(long epochSecond) {
+		Instant instant = Instant.ofEpochSecond(epochSecond);
+		ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+		ZoneOffsetTransition next = rules.nextTransition(instant);
+		int offsetSeconds = rules.getOffset(instant).getTotalSeconds();
+		if (next == null) {
+			return new OffsetWindow(previous == null ? Long.MIN_VALUE : previous.toEpochSecond(), Long.MAX_VALUE,
+					offsetSeconds, Long.MAX_VALUE, offsetSeconds);
+		}
+		ZoneOffsetTransition afterNext = rules.nextTransition(next.getInstant());
+		return new OffsetWindow(previous == null ? Long.MIN_VALUE : previous.toEpochSecond(), next.toEpochSecond(),
+				offsetSeconds, afterNext == null ? Long.MAX_VALUE : afterNext.toEpochSecond(),
+				next.getOffsetAfter().getTotalSeconds());
+	}
+
+	private static int nextBit(long bits, int from) {
+		if (from > 63) {
+			return -1;
+		}
+		long rest = bits & -1L << from;
+		return rest == 0 ? -1 : Long.numberOfTrailingZeros(rest);
+	}
+
+	private static int daysInMonth(long year, int month) {
+		switch (month) {
+		case 2:
+			return isLeapYear(year) ? 29 : 28;
+		case 4:
+		case 6:
+		case 9:
+		case 11:
+			return 30;
+		default:
+			return 31;
+		}
+	}
+
+	private static boolean isLeapYear(long year) {
+		return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+	}
+
+	/**
+	 * Returns the number of days since 1970-01-01 of the civil date.
+	 */
+	private static long toEpochDay(long year, int month, int day) {
+		long shiftedYear = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(shiftedYear, 400);
+		long yearOfEra = shiftedYear - era * 400;
+		long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	private static String expandMacro(String expression) {
+		switch (expression.trim().toLowerCase(Locale.ROOT)) {
+		case "@yearly":
+		case "@annually":
+			return "0 0 1 1 *";
+		case "@monthly":
+			return "0 0 1 * *";
+		case "@weekly":
+			return "0 0 * * 0";
+		case "@daily":
+		case "@midnight":
+			return "0 0 * * *";
+		case "@hourly":
+			return "0 * * * *";
+		default:
+			return expression;
+		}
+	}
+
+	private static boolean isWildcard(String field) {
+		return field.startsWith("*") || field.startsWith("?");
+	}
+
+	private static long parseField(String expression, String field, int min, int max, String[] names) {
+		long bits = 0;
+		for (String part : field.split(",")) {
+			String range = part;
+			int step = 1;
+			int slash = part.indexOf('/');
+			if (slash >= 0) {
+				range = part.substring(0, slash);
+				step = parseValue(expression, part.substring(slash + 1), 1, max, null);
+			}
+			int from;
+			int to;
+			if (range.equals("*") || range.equals("?")) {
+				from = min;
+				to = max;
+			} else {
+				int dash = range.indexOf('-');
+				if (dash >= 0) {
+					from = parseValue(expression, range.substring(0, dash), min, max, names);
+					to = parseValue(expression, range.substring(dash + 1), min, max, names);
+				} else {
+					from = parseValue(expression, range, min, max, names);
+					to = slash >= 0 ? max : from;
+				}
+			}
+			if (from > to) {
+				throw illegal(expression, "range " + range + " is reversed");
+			}
+			for (int value = from; value <= to; value += step) {
+				bits |= 1L << value;
+			}
+		}
+		return bits;
+	}
+
+	private static int parseValue(String expression, String value, int min, int max, String[] names) {
+		if (names != null) {
+			for (int i = 0; i < names.length; i++) {
+				if (names[i].equalsIgnoreCase(value)) {
+					// months are numbered from 1, days of week from 0
+					return i + min;
+				}
+			}
+		}
+		int number;
+		try {
+			number = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw illegal(expression, "value " + value + " is not a number");
+		}
+		if (number < min || number > max) {
+			throw illegal(expression, "value " + value + " is out of range [" + min + ", " + max + "]");
+		}
+		return number;
+	}
+
+	private static IllegalArgumentException illegal(String expression, String reason) {
+		return new IllegalArgumentException(String.format("Illegal cron expression=%s, %s", expression, reason));
+	}
+
+	@Override
+	public String toString() {
+		return "CronExpression [expression=" + expression + ", zone=" + zone + "]";
+	}
+
+	/**
+	 * The offset of the zone in {@code [from, to)} and in {@code [to, nextTo)}.
+	 */
+	private static final class OffsetWindow {
+		private final long from;
+		private final long to;
+		private final int offsetSeconds;
+		private final long nextTo;
+		private final int nextOffsetSeconds;
+
+		private OffsetWindow(long from, long to, int offsetSeconds, long nextTo, int nextOffsetSeconds) {
+			this.from = from;
+			this.to = to;
+			this.offsetSeconds = offsetSeconds;
+			this.nextTo = nextTo;
+			this.nextOffsetSeconds = nextOffsetSeconds;
+		}
+	}
+}
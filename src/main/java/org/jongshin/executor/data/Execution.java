@@ -1,23 +1,58 @@
 package org.jongshin.executor.data;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Preconditions;
 
 /**
  * Represents the result of an asynchronous computation. Methods are provided to
  * check if the computation is canceled, get status of task. Cancellation is
- * performed by the {@code cancel} method.
- * 
+ * performed by the {@code cancel} method. The computed value is available
+ * through {@link #getResult()}.
+ * <p>
+ * The status is a state machine advanced with compare-and-set transitions:
+ * {@code PENDING -> STARTED -> COMPLETED | FAILED | CANCELED | TIMED_OUT}. A
+ * pending execution may also be completed, failed or canceled without being
+ * started. A failed attempt of a task with a retry policy moves
+ * {@code STARTED -> RETRYING -> STARTED}. {@code CANCELED} is final, the other
+ * outcomes are final unless the execution is restartable. Every restart gets
+ * a new cancellation token. Reads of the status never block.
+ * Callers may wait for a status with {@link #awaitStatus} or register a
+ * listener with {@link #addStatusListener} instead of polling.
+ *
  * @author Vitalii_Kim
  *
  */
 public class Execution {
-	private Execution parentExecution;
-	private TaskStatus taskStatus;
-	private Future<?> future;
-	private boolean canceled;
+	private static final Logger LOGGER = Logger.getLogger(Execution.class);
+
+	private static final AtomicReferenceFieldUpdater<Execution, TaskStatus> STATUS_UPDATER = AtomicReferenceFieldUpdater
+			.newUpdater(Execution.class, TaskStatus.class, "taskStatus");
+
+	private volatile Execution parentExecution;
+	private volatile TaskStatus taskStatus;
+	private volatile Future<?> future;
+	private volatile boolean canceled;
+	private volatile List<Consumer<TaskStatus>> statusListeners;
+	private final CompletableFuture<Object> result;
+	private volatile CancellationToken cancellationToken;
+	private volatile long submittedNanos;
+	private volatile int attempts;
 
 	public Execution() {
 		this.taskStatus = TaskStatus.PENDING;
+		this.result = new CompletableFuture<>();
+		this.cancellationToken = new CancellationToken();
 	}
 
 	public Execution getParentExecution() {
@@ -32,8 +67,206 @@ public class Execution {
 		return taskStatus;
 	}
 
-	public void setTaskStatus(TaskStatus taskStatus) {
-		this.taskStatus = taskStatus;
+	/**
+	 * Moves the execution to the specified status if the transition from the
+	 * current status is allowed.
+	 *
+	 * @param taskStatus
+	 *            the new status
+	 * @return {@code true} if the status has been changed, {@code false} if
+	 *         the transition isn't allowed from the current status
+	 * @throws NullPointerException
+	 *             if {@code taskStatus} is {@code null}
+	 */
+	public boolean setTaskStatus(TaskStatus taskStatus) {
+		Preconditions.checkNotNull(taskStatus, "taskStatus is null");
+		for (;;) {
+			TaskStatus current = this.taskStatus;
+			if (!isTransitionAllowed(current, taskStatus)) {
+				return false;
+			}
+			if (STATUS_UPDATER.compareAndSet(this, current, taskStatus)) {
+				onTransition(current, taskStatus);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Atomically moves the execution from the expected status to the specified
+	 * one.
+	 *
+	 * @param expected
+	 *            the expected current status
+	 * @param taskStatus
+	 *            the new status
+	 * @return {@code true} if the status has been changed, {@code false} if the
+	 *         current status differs from {@code expected} or the transition
+	 *         isn't allowed
+	 * @throws NullPointerException
+	 *             if
+	 *             <li>{@code expected} is {@code null}</li>
+	 *             <li>{@code taskStatus} is {@code null}</li>
+	 */
+	public boolean compareAndSetTaskStatus(TaskStatus expected, TaskStatus taskStatus) {
+		Preconditions.checkNotNull(expected, "expected is null");
+		Preconditions.checkNotNull(taskStatus, "taskStatus is null");
+		if (!isTransitionAllowed(expected, taskStatus) || !STATUS_UPDATER.compareAndSet(this, expected, taskStatus)) {
+			return false;
+		}
+		onTransition(expected, taskStatus);
+		return true;
+	}
+
+	private void onTransition(TaskStatus from, TaskStatus to) {
+		if (to == TaskStatus.STARTED) {
+			// only the winner of the transition gets here
+			attempts++;
+		}
+		if (to == TaskStatus.STARTED && from.isTerminal()) {
+			// the token of the previous run may have been canceled by its deadline
+			CancellationToken token = new CancellationToken();
+			cancellationToken = token;
+			if (canceled) {
+				token.cancel();
+			}
+		}
+		fireStatusChanged(to);
+	}
+
+	/**
+	 * Returns {@code true} if the execution may be started again after it has
+	 * been completed or failed.
+	 */
+	protected boolean isRestartable() {
+		return false;
+	}
+
+	/**
+	 * Returns {@code true} if no further transition can leave the specified
+	 * status.
+	 */
+	public boolean isFinal(TaskStatus taskStatus) {
+		return taskStatus == TaskStatus.CANCELED || (taskStatus.isTerminal() && !isRestartable());
+	}
+
+	private boolean isTransitionAllowed(TaskStatus from, TaskStatus to) {
+		switch (to) {
+		case STARTED:
+			return from == TaskStatus.PENDING || from == TaskStatus.RETRYING || (from.isTerminal() && !isFinal(from));
+		case COMPLETED:
+			return from == TaskStatus.PENDING || from == TaskStatus.STARTED;
+		case FAILED:
+			// a retry may be rejected by the overloaded executor
+			return from == TaskStatus.PENDING || from == TaskStatus.STARTED || from == TaskStatus.RETRYING;
+		case TIMED_OUT:
+		case RETRYING:
+			return from == TaskStatus.STARTED;
+		case CANCELED:
+			return !isFinal(from);
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Registers a listener that is called with the new status after every
+	 * successful transition, on the thread that made it.
+	 *
+	 * @param listener
+	 *            the listener to be registered
+	 * @throws NullPointerException
+	 *             if {@code listener} is {@code null}
+	 */
+	public void addStatusListener(Consumer<TaskStatus> listener) {
+		Preconditions.checkNotNull(listener, "listener is null");
+		List<Consumer<TaskStatus>> listeners = statusListeners;
+		if (listeners == null) {
+			synchronized (this) {
+				listeners = statusListeners;
+				if (listeners == null) {
+					statusListeners = listeners = new CopyOnWriteArrayList<>();
+				}
+			}
+		}
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes the specified status listener.
+	 *
+	 * @param listener
+	 *            the listener to be removed
+	 * @return {@code true} if the listener has been registered
+	 */
+	public boolean removeStatusListener(Consumer<TaskStatus> listener) {
+		List<Consumer<TaskStatus>> listeners = statusListeners;
+		return listeners != null && listeners.remove(listener);
+	}
+
+	/**
+	 * Waits until the execution reaches the specified status.
+	 *
+	 * @param taskStatus
+	 *            the status to wait for
+	 * @param timeout
+	 *            the maximum time to wait
+	 * @param unit
+	 *            the time unit of the {@code timeout} argument
+	 * @return {@code true} if the status has been reached, {@code false} if the
+	 *         waiting time elapsed or the execution reached a final status
+	 *         from which {@code taskStatus} can't be reached
+	 * @throws InterruptedException
+	 *             if the current thread is interrupted while waiting
+	 * @throws NullPointerException
+	 *             if
+	 *             <li>{@code taskStatus} is {@code null}</li>
+	 *             <li>{@code unit} is {@code null}</li>
+	 */
+	public boolean awaitStatus(TaskStatus taskStatus, long timeout, TimeUnit unit) throws InterruptedException {
+		Preconditions.checkNotNull(taskStatus, "taskStatus is null");
+		Preconditions.checkNotNull(unit, "unit is null");
+		if (this.taskStatus == taskStatus) {
+			return true;
+		}
+		AtomicBoolean reached = new AtomicBoolean();
+		CountDownLatch latch = new CountDownLatch(1);
+		Consumer<TaskStatus> listener = status -> {
+			if (status == taskStatus) {
+				reached.set(true);
+				latch.countDown();
+			} else if (isFinal(status)) {
+				latch.countDown();
+			}
+		};
+		addStatusListener(listener);
+		try {
+			TaskStatus current = this.taskStatus;
+			if (current == taskStatus) {
+				return true;
+			}
+			if (isFinal(current)) {
+				return false;
+			}
+			latch.await(timeout, unit);
+			return reached.get();
+		} finally {
+			removeStatusListener(listener);
+		}
+	}
+
+	private void fireStatusChanged(TaskStatus taskStatus) {
+		List<Consumer<TaskStatus>> listeners = statusListeners;
+		if (listeners == null) {
+			return;
+		}
+		for (Consumer<TaskStatus> listener : listeners) {
+			try {
+				listener.accept(taskStatus);
+			} catch (RuntimeException e) {
+				LOGGER.error(String.format("Status listener failed [taskStatus=%s]", taskStatus), e);
+			}
+		}
 	}
 
 	public Future<?> getFuture() {
@@ -44,12 +277,72 @@ public class Execution {
 		this.future = future;
 	}
 
+	/**
+	 * Returns the completion handle of the task. It completes with the
+	 * computed value, completes exceptionally with the failure cause or is
+	 * canceled together with the task. A repeatable execution completes with
+	 * the outcome of its first run.
+	 *
+	 * @param <V>
+	 *            the type of task's computation result
+	 * @return the completion handle, never returns {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public <V> CompletableFuture<V> getResult() {
+		return (CompletableFuture<V>) result;
+	}
+
+	/**
+	 * Returns the {@link System#nanoTime()} of task's submission, or {@code 0}
+	 * if it hasn't been recorded.
+	 */
+	public long getSubmittedNanos() {
+		return submittedNanos;
+	}
+
+	public void setSubmittedNanos(long submittedNanos) {
+		this.submittedNanos = submittedNanos;
+	}
+
+	/**
+	 * Returns the number of times the execution has been started, including
+	 * retries and the runs of a repeatable execution.
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+
 	public boolean isCanceled() {
 		return canceled;
 	}
 
+	/**
+	 * Returns the token, through which the running task learns about the
+	 * cancellation of the execution or the expiry of its deadline.
+	 */
+	public CancellationToken getCancellationToken() {
+		return cancellationToken;
+	}
+
+	/**
+	 * Requests cancellation. An execution that hasn't been started yet is moved
+	 * to {@code CANCELED} right away, so it can't be started afterwards. A
+	 * running execution gets its cancellation token canceled and is moved to
+	 * {@code CANCELED} by the processor, once the task stops because of it.
+	 */
 	public void cancel() {
 		this.canceled = true;
+		for (;;) {
+			TaskStatus current = this.taskStatus;
+			if (current == TaskStatus.STARTED || !isTransitionAllowed(current, TaskStatus.CANCELED)) {
+				break;
+			}
+			if (STATUS_UPDATER.compareAndSet(this, current, TaskStatus.CANCELED)) {
+				fireStatusChanged(TaskStatus.CANCELED);
+				break;
+			}
+		}
+		cancellationToken.cancel();
 	}
 
 	@Override
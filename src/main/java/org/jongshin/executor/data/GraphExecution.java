@@ -0,0 +1,87 @@
+package org.jongshin.executor.data;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents the execution of a graph of tasks. Provides the
+ * {@link Execution} of every task, which has been started, and the results of
+ * all tasks.
+ * 
+ * @author Vitalii_Kim
+ *
+ * @param <K>
+ *            the type of task's key
+ */
+public class GraphExecution<K> {
+	private final Map<K, Execution> executions;
+	private final Map<K, CompletableFuture<Object>> results;
+	private final CompletableFuture<Map<K, Object>> result;
+	private volatile boolean canceled;
+
+	public GraphExecution(Map<K, CompletableFuture<Object>> results) {
+		this.executions = new ConcurrentHashMap<>();
+		this.results = Collections.unmodifiableMap(results);
+		this.result = CompletableFuture.allOf(results.values().toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+			Map<K, Object> values = new ConcurrentHashMap<>();
+			results.forEach((key, future) -> {
+				Object value = future.join();
+				if (value != null) {
+					values.put(key, value);
+				}
+			});
+			return Collections.unmodifiableMap(values);
+		});
+	}
+
+	/**
+	 * Returns {@link Execution} of task with specified {@code key}, or
+	 * {@code null} if the task has not been started yet.
+	 */
+	public Execution getExecution(K key) {
+		return executions.get(key);
+	}
+
+	public void putExecution(K key, Execution execution) {
+		executions.put(key, execution);
+		if (canceled) {
+			execution.cancel();
+		}
+	}
+
+	/**
+	 * Returns the completion handle of task with specified {@code key}, or
+	 * {@code null} if there is no such task in the graph.
+	 */
+	public CompletableFuture<Object> getResult(K key) {
+		return results.get(key);
+	}
+
+	/**
+	 * Returns the completion handle of the whole graph. It completes with the
+	 * non-{@code null} results of all tasks by their keys, or exceptionally if
+	 * any task has failed or has been canceled.
+	 */
+	public CompletableFuture<Map<K, Object>> getResult() {
+		return result;
+	}
+
+	public boolean isCanceled() {
+		return canceled;
+	}
+
+	/**
+	 * Cancels every task of the graph, which has not been started yet.
+	 */
+	public void cancel() {
+		this.canceled = true;
+		executions.values().forEach(Execution::cancel);
+	}
+
+	@Override
+	public String toString() {
+		return "GraphExecution [executions=" + executions + ", canceled=" + canceled + "]";
+	}
+}
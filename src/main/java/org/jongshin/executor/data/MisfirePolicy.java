@@ -0,0 +1,26 @@
+package org.jongshin.executor.data;
+
+/**
+ * Represents the handling of the runs of a fixed-rate schedule, which have
+ * been missed, because a previous run took longer than the period or the
+ * scheduler was late.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public enum MisfirePolicy {
+	/**
+	 * Runs every missed run back to back until the schedule is on time again.
+	 */
+	CATCH_UP,
+	/**
+	 * Drops the missed runs, the next run happens at the next due time of the
+	 * schedule.
+	 */
+	SKIP,
+	/**
+	 * Merges the missed runs into one run, which happens immediately, then
+	 * continues at the due times of the schedule.
+	 */
+	COALESCE;
+}
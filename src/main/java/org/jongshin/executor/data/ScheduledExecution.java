@@ -3,7 +3,10 @@ package org.jongshin.executor.data;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Represents an action that should be acted upon after a given delay.
+ * Represents an action that should be acted upon after a given delay. A
+ * repeatable action runs either with a fixed delay between the end of a run
+ * and the start of the next one, at a fixed rate with a
+ * {@link MisfirePolicy}, or at the fire times of a {@link CronExpression}.
  * 
  * @author Vitalii_Kim
  *
@@ -13,11 +16,39 @@ public class ScheduledExecution extends Execution {
 	private final long initialDelay;
 	private final long period;
 	private final TimeUnit timeUnit;
+	private final MisfirePolicy misfirePolicy;
+	private final CronExpression cronExpression;
 
 	public ScheduledExecution(long initialDelay, long period, TimeUnit timeUnit) {
+		this(initialDelay, period, timeUnit, null);
+	}
+
+	/**
+	 * @param misfirePolicy
+	 *            the handling of missed runs of a fixed-rate schedule, or
+	 *            {@code null} for a fixed-delay schedule
+	 */
+	public ScheduledExecution(long initialDelay, long period, TimeUnit timeUnit, MisfirePolicy misfirePolicy) {
+		this(initialDelay, period, timeUnit, misfirePolicy, null);
+	}
+
+	/**
+	 * @param initialDelay
+	 *            the time to delay the first fire time of the cron expression
+	 * @param cronExpression
+	 *            the cron expression, whose fire times start every run
+	 */
+	public ScheduledExecution(long initialDelay, TimeUnit timeUnit, CronExpression cronExpression) {
+		this(initialDelay, 0, timeUnit, null, cronExpression);
+	}
+
+	private ScheduledExecution(long initialDelay, long period, TimeUnit timeUnit, MisfirePolicy misfirePolicy,
+			CronExpression cronExpression) {
 		this.initialDelay = initialDelay;
 		this.period = period;
 		this.timeUnit = timeUnit;
+		this.misfirePolicy = misfirePolicy;
+		this.cronExpression = cronExpression;
 	}
 
 	public long getInitialDelay() {
@@ -33,13 +64,41 @@ public class ScheduledExecution extends Execution {
 	}
 
 	public boolean isRepeatable() {
-		return period != 0;
+		return period != 0 || cronExpression != null;
+	}
+
+	public boolean isFixedRate() {
+		return period != 0 && misfirePolicy != null;
+	}
+
+	/**
+	 * Returns the handling of missed runs, or {@code null} if the schedule
+	 * isn't fixed-rate.
+	 */
+	public MisfirePolicy getMisfirePolicy() {
+		return misfirePolicy;
+	}
+
+	/**
+	 * Returns the cron expression, or {@code null} if the schedule isn't
+	 * cron-based.
+	 */
+	public CronExpression getCronExpression() {
+		return cronExpression;
+	}
+
+	/**
+	 * A repeatable execution is started again on every period.
+	 */
+	@Override
+	protected boolean isRestartable() {
+		return isRepeatable();
 	}
 
 	@Override
 	public String toString() {
 		return "ScheduledExecution [initialDelay=" + initialDelay + ", period=" + period + ", timeUnit=" + timeUnit
-				+ "]";
+				+ ", misfirePolicy=" + misfirePolicy + ", cronExpression=" + cronExpression + "]";
 	}
 
 }
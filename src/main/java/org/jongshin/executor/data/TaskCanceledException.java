@@ -0,0 +1,16 @@
+package org.jongshin.executor.data;
+
+/**
+ * Thrown by a task, which stops its work because its cancellation has been
+ * requested.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public class TaskCanceledException extends ProcessorException {
+	private static final long serialVersionUID = 4710563620983511375L;
+
+	public TaskCanceledException(String message) {
+		super(message);
+	}
+}
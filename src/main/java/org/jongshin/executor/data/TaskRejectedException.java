@@ -0,0 +1,16 @@
+package org.jongshin.executor.data;
+
+/**
+ * Thrown when the processor refuses to accept a task, because its execution
+ * queue is full.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public class TaskRejectedException extends ProcessorException {
+	private static final long serialVersionUID = -2417930165532473185L;
+
+	public TaskRejectedException(String message) {
+		super(message);
+	}
+}
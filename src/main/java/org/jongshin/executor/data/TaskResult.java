@@ -16,11 +16,21 @@ public class TaskResult<V> {
 	private final ITask task;
 	private final V data;
 	private final Execution execution;
+	private final TaskStatus taskStatus;
 
 	public TaskResult(@SuppressWarnings("rawtypes") ITask task, V data, Execution execution) {
+		this(task, data, execution, execution.getTaskStatus());
+	}
+
+	/**
+	 * Creates the result with the status the execution has been moved to, so
+	 * that a later transition of the execution doesn't change it.
+	 */
+	public TaskResult(@SuppressWarnings("rawtypes") ITask task, V data, Execution execution, TaskStatus taskStatus) {
 		this.task = task;
 		this.data = data;
 		this.execution = execution;
+		this.taskStatus = taskStatus;
 	}
 
 	@SuppressWarnings("rawtypes")
@@ -36,9 +46,19 @@ public class TaskResult<V> {
 		return execution;
 	}
 
+	/**
+	 * Returns the status of execution at the moment the result was created.
+	 * Unlike the status of a repeatable {@link Execution}, it doesn't change
+	 * with the subsequent runs of the task.
+	 */
+	public TaskStatus getTaskStatus() {
+		return taskStatus;
+	}
+
 	@Override
 	public String toString() {
-		return "TaskResult [task=" + task + ", data=" + data + ", execution=" + execution + "]";
+		return "TaskResult [task=" + task + ", data=" + data + ", execution=" + execution + ", taskStatus="
+				+ taskStatus + "]";
 	}
 
 }
@@ -7,5 +7,21 @@ package org.jongshin.executor.data;
  *
  */
 public enum TaskStatus {
-	NOT_STARTED, PENDING, STARTED, CANCELED, FAILED, COMPLETED;
+	NOT_STARTED, PENDING, STARTED, CANCELED, FAILED, COMPLETED,
+	/**
+	 * The task has exceeded its deadline. Observers are notified of the
+	 * failure with {@link TaskTimeoutException}.
+	 */
+	TIMED_OUT,
+	/**
+	 * The task has failed and waits for its next attempt.
+	 */
+	RETRYING;
+
+	/**
+	 * Returns {@code true} if the status denotes the outcome of a run.
+	 */
+	public boolean isTerminal() {
+		return this == CANCELED || this == FAILED || this == COMPLETED || this == TIMED_OUT;
+	}
 }
@@ -0,0 +1,15 @@
+package org.jongshin.executor.data;
+
+/**
+ * Thrown when a task hasn't finished before its deadline.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public class TaskTimeoutException extends ProcessorException {
+	private static final long serialVersionUID = -6032215841786327431L;
+
+	public TaskTimeoutException(String message) {
+		super(message);
+	}
+}
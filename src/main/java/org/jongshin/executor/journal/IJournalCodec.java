@@ -0,0 +1,32 @@
+package org.jongshin.executor.journal;
+
+import org.jongshin.executor.oberservers.IObserver;
+import org.jongshin.executor.task.SingleTask;
+
+/**
+ * Converts scheduled tasks to the bytes kept by {@link ScheduleJournal} and
+ * back. Equal tasks must be encoded to equal bytes, since the bytes identify
+ * the task in the journal.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public interface IJournalCodec {
+
+	/**
+	 * Returns the bytes, which are enough to recreate the task.
+	 */
+	byte[] encode(SingleTask<?, ?> task);
+
+	/**
+	 * Recreates the task from the bytes returned by {@link #encode(SingleTask)}.
+	 */
+	SingleTask<?, ?> decode(byte[] data);
+
+	/**
+	 * Returns the observers to be bound to the task restored from the journal,
+	 * at least 1 observer should be returned.
+	 */
+	@SuppressWarnings("rawtypes")
+	IObserver[] getObservers(SingleTask<?, ?> task);
+}
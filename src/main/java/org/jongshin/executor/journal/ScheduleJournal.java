@@ -0,0 +1,516 @@
+package org.jongshin.executor.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.jongshin.executor.data.MisfirePolicy;
+import org.jongshin.executor.data.ProcessorException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Append-only journal of schedule and remove operations, kept in a
+ * memory-mapped file. Records are written to the mapped pages, so they
+ * survive a restart of the process without a system call per operation;
+ * {@link #force()} flushes them to the storage device, which is done every
+ * {@link #FORCE_INTERVAL_MILLIS} and on {@link #close()}.
+ * <p>
+ * The journal keeps the index of live schedules: the latest schedule of every
+ * task, which hasn't been removed since. Once the file holds much more than
+ * the live schedules, it is compacted in the background by rewriting the live
+ * schedules to a new file, which atomically replaces the old one. Recording
+ * waits for the compaction only while the records written during the rewrite
+ * are copied over and the file is replaced.
+ * <p>
+ * Mappings replaced by a larger one or by the compacted file are unmapped
+ * right away rather than when they are garbage collected, where the runtime
+ * allows it.
+ * <p>
+ * Every record is framed by its length, which is written after the record
+ * body, so a record torn by a crash is ignored on load. A fixed-rate schedule
+ * is a record type of its own, which carries the misfire policy, so journals
+ * written before it was introduced load unchanged.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public class ScheduleJournal implements Closeable {
+
+	private static final Logger LOGGER = Logger.getLogger(ScheduleJournal.class);
+
+	private static final byte SCHEDULE = 1;
+	private static final byte REMOVE = 2;
+	private static final byte FIXED_RATE_SCHEDULE = 3;
+	private static final MisfirePolicy[] MISFIRE_POLICIES = MisfirePolicy.values();
+	private static final int LENGTH_BYTES = Integer.BYTES;
+	private static final int SCHEDULE_HEADER_BYTES = 1 + Long.BYTES + Long.BYTES + Integer.BYTES;
+	private static final int FIXED_RATE_SCHEDULE_HEADER_BYTES = SCHEDULE_HEADER_BYTES + 1;
+	private static final int REMOVE_HEADER_BYTES = 1 + Integer.BYTES;
+	private static final int INITIAL_CAPACITY = 1 << 20;
+	private static final long MIN_COMPACTION_BYTES = 1 << 20;
+	private static final int COMPACTION_RATIO = 2;
+	static final long FORCE_INTERVAL_MILLIS = 1000;
+
+	private final Path file;
+	private final Map<ByteBuffer, Schedule> liveSchedules;
+	private final Object compactionLock;
+	private final ScheduledExecutorService maintenance;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long liveBytes;
+	private boolean compactionPending;
+	private boolean closed;
+
+	/**
+	 * Opens the journal, creating the file if it doesn't exist, and loads the
+	 * live schedules.
+	 * 
+	 * @param file
+	 *            the file of the journal
+	 * 
+	 * @throws NullPointerException
+	 *             if {@code file} is {@code null}
+	 * @throws ProcessorException
+	 *             if the file can't be read or mapped
+	 */
+	public ScheduleJournal(Path file) {
+		Preconditions.checkNotNull(file, "file is null");
+		this.file = file;
+		liveSchedules = new LinkedHashMap<>();
+		compactionLock = new Object();
+		try {
+			open();
+			load();
+		} catch (IOException e) {
+			throw new ProcessorException(String.format("Journal can't be opened [file=%s]", file), e);
+		}
+		maintenance = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactoryBuilder().setNameFormat("schedule-journal").setDaemon(true).build());
+		maintenance.scheduleWithFixedDelay(this::force, FORCE_INTERVAL_MILLIS, FORCE_INTERVAL_MILLIS,
+				TimeUnit.MILLISECONDS);
+	}
+
+	private void open() throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_CAPACITY, channel.size()));
+	}
+
+	private void load() {
+		while (buffer.remaining() >= LENGTH_BYTES) {
+			int start = buffer.position();
+			int length = buffer.getInt(start);
+			if (length <= 0 || length > buffer.limit() - start - LENGTH_BYTES) {
+				break;
+			}
+			ByteBuffer body = buffer.duplicate();
+			body.position(start + LENGTH_BYTES).limit(start + LENGTH_BYTES + length);
+			byte type = body.get();
+			if (type == SCHEDULE || type == FIXED_RATE_SCHEDULE) {
+				long firstFireEpochMillis = body.getLong();
+				long periodNanos = body.getLong();
+				MisfirePolicy misfirePolicy = null;
+				if (type == FIXED_RATE_SCHEDULE) {
+					int ordinal = body.get();
+					if (ordinal < 0 || ordinal >= MISFIRE_POLICIES.length) {
+						LOGGER.warn(String.format("Journal has an unknown misfire policy, the rest is ignored "
+								+ "[file=%s, position=%d]", file, start));
+						break;
+					}
+					misfirePolicy = MISFIRE_POLICIES[ordinal];
+				}
+				byte[] taskData = new byte[body.getInt()];
+				body.get(taskData);
+				putLive(new Schedule(taskData, firstFireEpochMillis, periodNanos, misfirePolicy));
+			} else if (type == REMOVE) {
+				byte[] taskData = new byte[body.getInt()];
+				body.get(taskData);
+				removeLive(taskData);
+			} else {
+				LOGGER.warn(String.format("Journal has an unknown record, the rest is ignored [file=%s, position=%d]",
+						file, start));
+				break;
+			}
+			buffer.position(start + LENGTH_BYTES + length);
+		}
+	}
+
+	/**
+	 * Records the fixed-delay or one-shot schedule of a task, which replaces its previous schedule.
+	 * The record is ignored once the journal has been closed.
+	 * 
+	 * @param taskData
+	 *            the encoded task
+	 * @param firstFireEpochMillis
+	 *            the wall-clock time of the first run
+	 * @param periodNanos
+	 *            the delay between runs, or {@code 0} for a one-shot task
+	 */
+	public void recordSchedule(byte[] taskData, long firstFireEpochMillis, long periodNanos) {
+		recordSchedule(taskData, firstFireEpochMillis, periodNanos, null);
+	}
+
+	/**
+	 * Records the schedule of a task, which replaces its previous schedule.
+	 * The record is ignored once the journal has been closed.
+	 * 
+	 * @param taskData
+	 *            the encoded task
+	 * @param firstFireEpochMillis
+	 *            the wall-clock time of the first run
+	 * @param periodNanos
+	 *            the period of runs, or {@code 0} for a one-shot task
+	 * @param misfirePolicy
+	 *            the misfire policy of a fixed-rate schedule, or {@code null}
+	 *            for a fixed-delay or one-shot one
+	 */
+	public synchronized void recordSchedule(byte[] taskData, long firstFireEpochMillis, long periodNanos,
+			MisfirePolicy misfirePolicy) {
+		Preconditions.checkNotNull(taskData, "taskData is null");
+		if (closed) {
+			LOGGER.debug(String.format("Journal has been closed, schedule is not recorded [file=%s]", file));
+			return;
+		}
+		Schedule schedule = new Schedule(taskData, firstFireEpochMillis, periodNanos, misfirePolicy);
+		ByteBuffer body = ByteBuffer.allocate(schedule.size() - LENGTH_BYTES);
+		schedule.writeBody(body);
+		append(body);
+		putLive(schedule);
+		compactIfNeeded();
+	}
+
+	/**
+	 * Records that a task has been canceled or has run for the last time.
+	 * The record is ignored once the journal has been closed.
+	 * 
+	 * @param taskData
+	 *            the encoded task
+	 */
+	public synchronized void recordRemove(byte[] taskData) {
+		Preconditions.checkNotNull(taskData, "taskData is null");
+		if (closed || !liveSchedules.containsKey(ByteBuffer.wrap(taskData))) {
+			return;
+		}
+		ByteBuffer body = ByteBuffer.allocate(REMOVE_HEADER_BYTES + taskData.length);
+		body.put(REMOVE).putInt(taskData.length).put(taskData);
+		append(body);
+		removeLive(taskData);
+		compactIfNeeded();
+	}
+
+	/**
+	 * Returns the schedules, which haven't been removed, in order of their
+	 * first record.
+	 */
+	public synchronized List<Schedule> getLiveSchedules() {
+		return new ArrayList<>(liveSchedules.values());
+	}
+
+	private void putLive(Schedule schedule) {
+		Schedule previous = liveSchedules.put(ByteBuffer.wrap(schedule.taskData), schedule);
+		if (previous != null) {
+			liveBytes -= previous.size();
+		}
+		liveBytes += schedule.size();
+	}
+
+	private void removeLive(byte[] taskData) {
+		Schedule previous = liveSchedules.remove(ByteBuffer.wrap(taskData));
+		if (previous != null) {
+			liveBytes -= previous.size();
+		}
+	}
+
+	private void append(ByteBuffer body) {
+		body.flip();
+		int length = body.remaining();
+		ensureCapacity(LENGTH_BYTES + length);
+		int start = buffer.position();
+		buffer.position(start + LENGTH_BYTES);
+		buffer.put(body);
+		// the length commits the record, so it is written last
+		buffer.putInt(start, length);
+	}
+
+	private void ensureCapacity(int bytes) {
+		if (buffer.remaining() >= bytes) {
+			return;
+		}
+		long capacity = buffer.capacity();
+		long required = (long) buffer.position() + bytes;
+		while (capacity < required) {
+			capacity *= 2;
+		}
+		Preconditions.checkState(capacity <= Integer.MAX_VALUE, "Journal exceeds %s bytes", Integer.MAX_VALUE);
+		int position = buffer.position();
+		MappedByteBuffer replaced = buffer;
+		try {
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		} catch (IOException e) {
+			throw new ProcessorException(String.format("Journal can't be extended [file=%s]", file), e);
+		}
+		buffer.position(position);
+		unmap(replaced);
+	}
+
+	private void compactIfNeeded() {
+		long writtenBytes = buffer.position();
+		if (compactionPending || writtenBytes < MIN_COMPACTION_BYTES || writtenBytes <= COMPACTION_RATIO * liveBytes) {
+			return;
+		}
+		compactionPending = true;
+		try {
+			maintenance.execute(() -> {
+				try {
+					compact();
+				} catch (RuntimeException e) {
+					LOGGER.error(String.format("Journal can't be compacted [file=%s]", file), e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// the journal is being closed
+			compactionPending = false;
+		}
+	}
+
+	/**
+	 * Rewrites the live schedules to a new file, which replaces the journal.
+	 * The live schedules are written without holding the journal, then the
+	 * records written meanwhile are copied over and the file is replaced.
+	 * Does nothing once the journal has been closed.
+	 * 
+	 * @throws ProcessorException
+	 *             if the new file can't be written
+	 */
+	public void compact() {
+		synchronized (compactionLock) {
+			Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+			Collection<Schedule> schedules;
+			int snapshotPosition;
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				schedules = new ArrayList<>(liveSchedules.values());
+				snapshotPosition = buffer.position();
+			}
+			try {
+				Files.deleteIfExists(compacted);
+				try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE_NEW,
+						StandardOpenOption.WRITE)) {
+					ByteBuffer frame = ByteBuffer.allocate(64 * 1024);
+					for (Schedule schedule : schedules) {
+						int size = schedule.size();
+						if (frame.remaining() < size) {
+							flush(frame, target);
+							if (frame.capacity() < size) {
+								frame = ByteBuffer.allocate(size);
+							}
+						}
+						frame.putInt(size - LENGTH_BYTES);
+						schedule.writeBody(frame);
+					}
+					flush(frame, target);
+					synchronized (this) {
+						if (closed) {
+							return;
+						}
+						replace(compacted, target, snapshotPosition);
+					}
+				}
+			} catch (IOException e) {
+				throw new ProcessorException(String.format("Journal can't be compacted [file=%s]", file), e);
+			} finally {
+				synchronized (this) {
+					// the old file is still in place till the end, so no further compaction is due before
+					compactionPending = false;
+				}
+				try {
+					Files.deleteIfExists(compacted);
+				} catch (IOException e) {
+					LOGGER.warn(String.format("Compacted journal can't be deleted [file=%s]", compacted), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends the records written since the snapshot of live schedules to the
+	 * compacted file, which then replaces the journal. Replaying them after
+	 * the snapshot gives the current live schedules.
+	 */
+	private void replace(Path compacted, FileChannel target, int snapshotPosition) throws IOException {
+		ByteBuffer tail = buffer.duplicate();
+		tail.position(snapshotPosition).limit(buffer.position());
+		while (tail.hasRemaining()) {
+			target.write(tail);
+		}
+		target.force(true);
+		MappedByteBuffer replaced = buffer;
+		channel.close();
+		Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		unmap(replaced);
+		liveSchedules.clear();
+		liveBytes = 0;
+		open();
+		load();
+	}
+
+	/**
+	 * Releases the mapping without waiting for the buffer to be garbage
+	 * collected. The buffer mustn't be accessed afterwards. The mapping is
+	 * left to the garbage collector, if the runtime doesn't allow to release
+	 * it.
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			// Java 9+
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), buffer);
+			return;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			LOGGER.trace("Unsafe.invokeCleaner is not available", e);
+		}
+		try {
+			// Java 8
+			Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			Object cleaner = cleanerMethod.invoke(buffer);
+			if (cleaner != null) {
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			LOGGER.debug("Journal mapping is left to the garbage collector", e);
+		}
+	}
+
+	private static void flush(ByteBuffer frame, FileChannel target) throws IOException {
+		frame.flip();
+		while (frame.hasRemaining()) {
+			target.write(frame);
+		}
+		frame.clear();
+	}
+
+	/**
+	 * Flushes the written records to the storage device.
+	 */
+	public synchronized void force() {
+		if (!closed) {
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Flushes the written records to the storage device and closes the
+	 * journal. Later records are ignored.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		maintenance.shutdown();
+		buffer.force();
+		try {
+			channel.close();
+		} catch (IOException e) {
+			throw new ProcessorException(String.format("Journal can't be closed [file=%s]", file), e);
+		}
+		unmap(buffer);
+	}
+
+	/**
+	 * The live schedule of a task.
+	 */
+	public static final class Schedule {
+		private final byte[] taskData;
+		private final long firstFireEpochMillis;
+		private final long periodNanos;
+		private final MisfirePolicy misfirePolicy;
+
+		Schedule(byte[] taskData, long firstFireEpochMillis, long periodNanos, MisfirePolicy misfirePolicy) {
+			this.taskData = taskData;
+			this.firstFireEpochMillis = firstFireEpochMillis;
+			this.periodNanos = periodNanos;
+			this.misfirePolicy = misfirePolicy;
+		}
+
+		public byte[] getTaskData() {
+			return taskData.clone();
+		}
+
+		public long getFirstFireEpochMillis() {
+			return firstFireEpochMillis;
+		}
+
+		/**
+		 * Returns the delay between runs, or {@code 0} for a one-shot task.
+		 */
+		public long getPeriodNanos() {
+			return periodNanos;
+		}
+
+		/**
+		 * Returns the misfire policy of a fixed-rate schedule, or {@code null}
+		 * for a fixed-delay or one-shot one.
+		 */
+		public MisfirePolicy getMisfirePolicy() {
+			return misfirePolicy;
+		}
+
+		/**
+		 * Returns the delay in nanoseconds between the specified time and the
+		 * next run, which is the first run, if it is still ahead, or the
+		 * earliest run of the period, which is not in the past. An overdue
+		 * one-shot task is due immediately.
+		 */
+		public long getNextDelayNanos(long nowEpochMillis) {
+			long delayNanos = (firstFireEpochMillis - nowEpochMillis) * 1_000_000L;
+			if (delayNanos < 0 && periodNanos > 0) {
+				long overdueNanos = -delayNanos;
+				delayNanos = (periodNanos - overdueNanos % periodNanos) % periodNanos;
+			}
+			return Math.max(1, delayNanos);
+		}
+
+		private int size() {
+			return LENGTH_BYTES + (misfirePolicy == null ? SCHEDULE_HEADER_BYTES : FIXED_RATE_SCHEDULE_HEADER_BYTES)
+					+ taskData.length;
+		}
+
+		private void writeBody(ByteBuffer body) {
+			if (misfirePolicy == null) {
+				body.put(SCHEDULE).putLong(firstFireEpochMillis).putLong(periodNanos);
+			} else {
+				body.put(FIXED_RATE_SCHEDULE).putLong(firstFireEpochMillis).putLong(periodNanos)
+						.put((byte) misfirePolicy.ordinal());
+			}
+			body.putInt(taskData.length).put(taskData);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package org.jongshin.executor.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records latencies in nanoseconds into buckets of powers of two. Recording
+ * is lock-free and doesn't allocate: every bucket is a striped counter, so
+ * concurrent threads don't contend on a single memory location.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The bucket {@code i} holds the values in {@code [2^(i-1), 2^i)}, the
+	 * bucket {@code 0} holds zeroes.
+	 */
+	static final int BUCKETS = Long.SIZE;
+
+	private final LongAdder[] buckets;
+	private final LongAdder sum;
+	private final LongAccumulator max;
+
+	public LatencyHistogram() {
+		buckets = new LongAdder[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+		sum = new LongAdder();
+		max = new LongAccumulator(Math::max, 0);
+	}
+
+	/**
+	 * Records the specified latency. Negative values are recorded as zeroes.
+	 * 
+	 * @param nanos
+	 *            the latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		buckets[bucketOf(value)].increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	static int bucketOf(long value) {
+		return Long.SIZE - Long.numberOfLeadingZeros(value);
+	}
+
+	/**
+	 * Returns the copy of recorded values. The copy isn't atomic: values
+	 * recorded during the call may be partially included.
+	 */
+	public Snapshot snapshot() {
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+		}
+		return new Snapshot(counts, sum.sum(), max.get());
+	}
+
+	/**
+	 * Immutable copy of {@link LatencyHistogram}. Percentiles are reported as
+	 * the upper bound of the bucket, which holds them, so they are accurate
+	 * within a factor of two.
+	 */
+	public static final class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long max;
+
+		Snapshot(long[] counts, long sum, long max) {
+			this.counts = counts;
+			this.count = Arrays.stream(counts).sum();
+			this.sum = sum;
+			this.max = max;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the mean latency in nanoseconds, or {@code 0} if nothing has
+		 * been recorded.
+		 */
+		public double getMean() {
+			return count == 0 ? 0 : (double) sum / count;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Returns the latency in nanoseconds, which is not exceeded by the
+		 * specified fraction of recorded values.
+		 * 
+		 * @param quantile
+		 *            the fraction in {@code [0, 1]}, e.g. {@code 0.99}
+		 * @return the latency or {@code 0} if nothing has been recorded
+		 * 
+		 * @throws IllegalArgumentException
+		 *             if {@code quantile} is out of {@code [0, 1]}
+		 */
+		public long getPercentile(double quantile) {
+			if (quantile < 0 || quantile > 1) {
+				throw new IllegalArgumentException(String.format("Illegal quantile=%s", quantile));
+			}
+			if (count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(quantile * count));
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(upperBound(i), max);
+				}
+			}
+			return max;
+		}
+
+		private static long upperBound(int bucket) {
+			return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+		}
+
+		/**
+		 * Returns the number of values recorded into every bucket, the bucket
+		 * {@code i} holds the values in {@code [2^(i-1), 2^i)}.
+		 */
+		public long[] getCounts() {
+			return counts.clone();
+		}
+
+		@Override
+		public String toString() {
+			return "Snapshot [count=" + count + ", mean=" + getMean() + ", p50=" + getPercentile(0.5) + ", p99="
+					+ getPercentile(0.99) + ", max=" + max + "]";
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package org.jongshin.executor.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable copy of {@link ProcessorMetrics}.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public final class MetricsSnapshot {
+	private final Map<String, TaskCounters.Snapshot> countersByTaskClass;
+	private final Map<Object, TaskCounters.Snapshot> countersByMajorKey;
+	private final LatencyHistogram.Snapshot queueWait;
+	private final LatencyHistogram.Snapshot runTime;
+	private final Map<String, LatencyHistogram.Snapshot> queueWaitByTaskClass;
+	private final Map<String, LatencyHistogram.Snapshot> runTimeByTaskClass;
+	private final LatencyHistogram.Snapshot notifyTime;
+	private final Map<String, Number> gauges;
+
+	MetricsSnapshot(Map<String, TaskCounters.Snapshot> countersByTaskClass,
+			Map<Object, TaskCounters.Snapshot> countersByMajorKey, LatencyHistogram.Snapshot queueWait,
+			LatencyHistogram.Snapshot runTime, Map<String, LatencyHistogram.Snapshot> queueWaitByTaskClass,
+			Map<String, LatencyHistogram.Snapshot> runTimeByTaskClass, LatencyHistogram.Snapshot notifyTime,
+			Map<String, Number> gauges) {
+		this.countersByTaskClass = Collections.unmodifiableMap(countersByTaskClass);
+		this.countersByMajorKey = Collections.unmodifiableMap(countersByMajorKey);
+		this.queueWait = queueWait;
+		this.runTime = runTime;
+		this.queueWaitByTaskClass = Collections.unmodifiableMap(queueWaitByTaskClass);
+		this.runTimeByTaskClass = Collections.unmodifiableMap(runTimeByTaskClass);
+		this.notifyTime = notifyTime;
+		this.gauges = Collections.unmodifiableMap(gauges);
+	}
+
+	/**
+	 * Returns the counters of tasks by the name of task's class.
+	 */
+	public Map<String, TaskCounters.Snapshot> getCountersByTaskClass() {
+		return countersByTaskClass;
+	}
+
+	/**
+	 * Returns the counters of tasks with composite key by the major part of the
+	 * key.
+	 */
+	public Map<Object, TaskCounters.Snapshot> getCountersByMajorKey() {
+		return countersByMajorKey;
+	}
+
+	/**
+	 * Returns the latencies between submission of tasks and their start.
+	 */
+	public LatencyHistogram.Snapshot getQueueWait() {
+		return queueWait;
+	}
+
+	/**
+	 * Returns the latencies between start and end of tasks.
+	 */
+	public LatencyHistogram.Snapshot getRunTime() {
+		return runTime;
+	}
+
+	/**
+	 * Returns the latencies between submission of tasks and their start by
+	 * the name of task's class.
+	 */
+	public Map<String, LatencyHistogram.Snapshot> getQueueWaitByTaskClass() {
+		return queueWaitByTaskClass;
+	}
+
+	/**
+	 * Returns the latencies between start and end of tasks by the name of
+	 * task's class.
+	 */
+	public Map<String, LatencyHistogram.Snapshot> getRunTimeByTaskClass() {
+		return runTimeByTaskClass;
+	}
+
+	/**
+	 * Returns the time spent on notifying observers.
+	 */
+	public LatencyHistogram.Snapshot getNotifyTime() {
+		return notifyTime;
+	}
+
+	/**
+	 * Returns the sampled values of gauges by their names.
+	 */
+	public Map<String, Number> getGauges() {
+		return gauges;
+	}
+
+	@Override
+	public String toString() {
+		return "MetricsSnapshot [countersByTaskClass=" + countersByTaskClass + ", countersByMajorKey="
+				+ countersByMajorKey + ", queueWait=" + queueWait + ", runTime=" + runTime + ", queueWaitByTaskClass="
+				+ queueWaitByTaskClass + ", runTimeByTaskClass=" + runTimeByTaskClass + ", notifyTime=" + notifyTime
+				+ ", gauges=" + gauges + "]";
+	}
+}
@@ -0,0 +1,154 @@
+package org.jongshin.executor.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.jongshin.executor.data.CompositeKey;
+import org.jongshin.executor.task.ITask;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Collects the metrics of tasks flowing through the processor: counters of
+ * tasks by class and by major key, latency histograms of queue wait and run
+ * time, both overall and by task class, the histogram of observer
+ * notification, and gauges of pools and queues. Recording is lock-free, the
+ * collected values are read through {@link #snapshot()}.
+ * <p>
+ * Counters by major key are kept for tasks with {@link CompositeKey} and live
+ * as long as the metrics, so the number of distinct majors should be bounded.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public class ProcessorMetrics {
+
+	@SuppressWarnings("rawtypes")
+	private final Map<Class<?>, TaskCounters> countersByTaskClass;
+	private final Map<Object, TaskCounters> countersByMajorKey;
+	private final LatencyHistogram queueWait;
+	private final LatencyHistogram runTime;
+	@SuppressWarnings("rawtypes")
+	private final Map<Class<?>, LatencyHistogram> queueWaitByTaskClass;
+	@SuppressWarnings("rawtypes")
+	private final Map<Class<?>, LatencyHistogram> runTimeByTaskClass;
+	private final LatencyHistogram notifyTime;
+	private final Map<String, Supplier<? extends Number>> gauges;
+
+	public ProcessorMetrics() {
+		countersByTaskClass = new ConcurrentHashMap<>();
+		countersByMajorKey = new ConcurrentHashMap<>();
+		queueWait = new LatencyHistogram();
+		runTime = new LatencyHistogram();
+		queueWaitByTaskClass = new ConcurrentHashMap<>();
+		runTimeByTaskClass = new ConcurrentHashMap<>();
+		notifyTime = new LatencyHistogram();
+		gauges = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Registers the gauge, which is sampled on every {@link #snapshot()}. The
+	 * gauge registered under the same name is replaced.
+	 * 
+	 * @throws NullPointerException
+	 *             if
+	 *             <li>{@code name} is {@code null}</li>
+	 *             <li>{@code gauge} is {@code null}</li>
+	 */
+	public void registerGauge(String name, Supplier<? extends Number> gauge) {
+		Preconditions.checkNotNull(name, "name is null");
+		Preconditions.checkNotNull(gauge, "gauge is null");
+		gauges.put(name, gauge);
+	}
+
+	public <K, V> void onStarted(ITask<K, V> task) {
+		forEachCounters(task, TaskCounters::onStarted);
+	}
+
+	public <K, V> void onCompleted(ITask<K, V> task) {
+		forEachCounters(task, TaskCounters::onCompleted);
+	}
+
+	public <K, V> void onFailed(ITask<K, V> task) {
+		forEachCounters(task, TaskCounters::onFailed);
+	}
+
+	public <K, V> void onCanceled(ITask<K, V> task) {
+		forEachCounters(task, TaskCounters::onCanceled);
+	}
+
+	/**
+	 * Records the time between submission of the task and its start.
+	 */
+	public <K, V> void recordQueueWait(ITask<K, V> task, long nanos) {
+		queueWait.record(nanos);
+		getOrCreate(queueWaitByTaskClass, task.getClass(), LatencyHistogram::new).record(nanos);
+	}
+
+	/**
+	 * Records the time between start and end of the task.
+	 */
+	public <K, V> void recordRunTime(ITask<K, V> task, long nanos) {
+		runTime.record(nanos);
+		getOrCreate(runTimeByTaskClass, task.getClass(), LatencyHistogram::new).record(nanos);
+	}
+
+	/**
+	 * Records the time spent on notifying the observers of a task.
+	 */
+	public void recordNotifyTime(long nanos) {
+		notifyTime.record(nanos);
+	}
+
+	private <K, V> void forEachCounters(ITask<K, V> task, Consumer<TaskCounters> action) {
+		action.accept(getOrCreate(countersByTaskClass, task.getClass(), TaskCounters::new));
+		K key = task.getKey();
+		if (key instanceof CompositeKey) {
+			Object major = ((CompositeKey<?>) key).getMajor();
+			action.accept(getOrCreate(countersByMajorKey, major, TaskCounters::new));
+		}
+	}
+
+	/**
+	 * Returns the value of the specified key, creating it on the first use
+	 * only: the plain lookup keeps the recording of known keys off the bin
+	 * lock taken by {@code computeIfAbsent}.
+	 */
+	private static <T, M> M getOrCreate(Map<T, M> metrics, T key, Supplier<M> factory) {
+		M metric = metrics.get(key);
+		return metric != null ? metric : metrics.computeIfAbsent(key, k -> factory.get());
+	}
+
+	/**
+	 * Returns the copy of collected metrics. The copy isn't atomic: values
+	 * recorded during the call may be partially included.
+	 */
+	public MetricsSnapshot snapshot() {
+		Map<String, TaskCounters.Snapshot> byTaskClass = new TreeMap<>();
+		countersByTaskClass.forEach((taskClass, counters) -> {
+			byTaskClass.put(taskClass.getName(), counters.snapshot());
+		});
+		Map<Object, TaskCounters.Snapshot> byMajorKey = new HashMap<>();
+		countersByMajorKey.forEach((major, counters) -> {
+			byMajorKey.put(major, counters.snapshot());
+		});
+		Map<String, LatencyHistogram.Snapshot> queueWaits = new TreeMap<>();
+		queueWaitByTaskClass.forEach((taskClass, histogram) -> {
+			queueWaits.put(taskClass.getName(), histogram.snapshot());
+		});
+		Map<String, LatencyHistogram.Snapshot> runTimes = new TreeMap<>();
+		runTimeByTaskClass.forEach((taskClass, histogram) -> {
+			runTimes.put(taskClass.getName(), histogram.snapshot());
+		});
+		Map<String, Number> gaugeValues = new TreeMap<>();
+		gauges.forEach((name, gauge) -> {
+			gaugeValues.put(name, gauge.get());
+		});
+		return new MetricsSnapshot(byTaskClass, byMajorKey, queueWait.snapshot(), runTime.snapshot(), queueWaits,
+				runTimes, notifyTime.snapshot(), gaugeValues);
+	}
+}
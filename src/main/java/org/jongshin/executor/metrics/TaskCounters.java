@@ -0,0 +1,77 @@
+package org.jongshin.executor.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts tasks by their outcome. Every counter is striped, so concurrent
+ * threads don't contend on a single memory location.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public class TaskCounters {
+
+	private final LongAdder started = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder canceled = new LongAdder();
+
+	void onStarted() {
+		started.increment();
+	}
+
+	void onCompleted() {
+		completed.increment();
+	}
+
+	void onFailed() {
+		failed.increment();
+	}
+
+	void onCanceled() {
+		canceled.increment();
+	}
+
+	public Snapshot snapshot() {
+		return new Snapshot(started.sum(), completed.sum(), failed.sum(), canceled.sum());
+	}
+
+	/**
+	 * Immutable copy of {@link TaskCounters}.
+	 */
+	public static final class Snapshot {
+		private final long started;
+		private final long completed;
+		private final long failed;
+		private final long canceled;
+
+		Snapshot(long started, long completed, long failed, long canceled) {
+			this.started = started;
+			this.completed = completed;
+			this.failed = failed;
+			this.canceled = canceled;
+		}
+
+		public long getStarted() {
+			return started;
+		}
+
+		public long getCompleted() {
+			return completed;
+		}
+
+		public long getFailed() {
+			return failed;
+		}
+
+		public long getCanceled() {
+			return canceled;
+		}
+
+		@Override
+		public String toString() {
+			return "Snapshot [started=" + started + ", completed=" + completed + ", failed=" + failed
+					+ ", canceled=" + canceled + "]";
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package org.jongshin.executor.oberservers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.jongshin.executor.data.TaskResult;
+
+/**
+ * Collects results for one {@link IBatchObserver} until they are delivered as
+ * a batch. An accumulator lives for one batch window: once its delay elapses
+ * it delivers what is left and closes, so a new accumulator is created for the
+ * next result.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+class BatchAccumulator {
+
+	private static final Logger LOGGER = Logger.getLogger(BatchAccumulator.class);
+
+	@SuppressWarnings("rawtypes")
+	private final IBatchObserver observer;
+	private final int maxBatchSize;
+	@SuppressWarnings("rawtypes")
+	private List<TaskResult> buffer;
+	private boolean closed;
+
+	BatchAccumulator(@SuppressWarnings("rawtypes") IBatchObserver observer) {
+		this.observer = observer;
+		this.maxBatchSize = Math.max(1, observer.getMaxBatchSize());
+		buffer = new ArrayList<>();
+	}
+
+	/**
+	 * Adds the result to the current batch and delivers the batch, if it is
+	 * full.
+	 * 
+	 * @return {@code false} if the accumulator has been closed and the result
+	 *         has not been accepted
+	 */
+	boolean add(TaskResult<?> result) {
+		@SuppressWarnings("rawtypes")
+		List<TaskResult> batch = null;
+		synchronized (this) {
+			if (closed) {
+				return false;
+			}
+			buffer.add(result);
+			if (buffer.size() >= maxBatchSize) {
+				batch = buffer;
+				buffer = new ArrayList<>();
+			}
+		}
+		deliver(batch);
+		return true;
+	}
+
+	/**
+	 * Delivers the current batch and closes the accumulator.
+	 */
+	void close() {
+		@SuppressWarnings("rawtypes")
+		List<TaskResult> batch;
+		synchronized (this) {
+			closed = true;
+			batch = buffer;
+			buffer = null;
+		}
+		deliver(batch);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void deliver(List<TaskResult> batch) {
+		if (batch == null || batch.isEmpty()) {
+			return;
+		}
+		try {
+			observer.notifyBatch((List) batch);
+		} catch (RuntimeException e) {
+			LOGGER.error(String.format("Batch observer has failed [observer=%s, results=%d]", observer,
+					batch.size()), e);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package org.jongshin.executor.oberservers;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.jongshin.executor.data.TaskResult;
+import org.jongshin.executor.data.TaskStatus;
+import org.jongshin.executor.task.ITask;
+
+/**
+ * The observer, which is informed of changes in {@link ITask} objects in
+ * batches. Results are accumulated per observer and delivered once
+ * {@link #getMaxBatchSize()} results have been collected or
+ * {@link #getMaxBatchDelayMillis()} has elapsed since the first of them,
+ * whichever comes first.
+ * 
+ * <p>
+ * {@link IObserverManager} never calls the per-result methods of
+ * {@link IObserver} for a batch observer. Other callers, which notify the
+ * observer directly, get their result delivered as a batch of one, which
+ * doesn't carry the task and its execution.
+ * 
+ * @author Vitalii_Kim
+ *
+ * @param <V>
+ *            The result of task computation
+ */
+public interface IBatchObserver<V> extends IObserver<V> {
+
+	int DEFAULT_MAX_BATCH_SIZE = 256;
+	long DEFAULT_MAX_BATCH_DELAY_MILLIS = 100;
+
+	/**
+	 * Receives completed, failed and canceled results of tasks. The status of
+	 * every result is available through {@link TaskResult#getTaskStatus()}. May
+	 * be called from different threads.
+	 * 
+	 * @param results
+	 *            the accumulated results, never empty
+	 */
+	void notifyBatch(List<TaskResult<V>> results);
+
+	/**
+	 * Returns the number of results, which triggers delivery of a batch.
+	 */
+	default int getMaxBatchSize() {
+		return DEFAULT_MAX_BATCH_SIZE;
+	}
+
+	/**
+	 * Returns the maximum time the first result of a batch waits for
+	 * delivery.
+	 */
+	default long getMaxBatchDelayMillis() {
+		return DEFAULT_MAX_BATCH_DELAY_MILLIS;
+	}
+
+	@Override
+	default void notifyCompleted(V data) {
+		notifyBatch(Collections.singletonList(new TaskResult<>(null, data, null, TaskStatus.COMPLETED)));
+	}
+
+	@Override
+	default void notifyCanceled() {
+		notifyBatch(Collections.singletonList(new TaskResult<>(null, null, null, TaskStatus.CANCELED)));
+	}
+
+	/**
+	 * Delivers the failure as a batch of one, which result data is the cause
+	 * like the one of failed results accumulated by {@link IObserverManager}.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	default void notifyFailed(Throwable cause) {
+		notifyBatch(Collections.singletonList(new TaskResult<>(null, (V) cause, null, TaskStatus.FAILED)));
+	}
+}
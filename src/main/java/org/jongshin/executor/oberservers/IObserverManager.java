@@ -80,4 +80,22 @@ public interface IObserverManager {
 	 *             if {@code taskResult} has is {@code null}
 	 */
 	<V> void notifyObservers(TaskResult<V> taskResult);
+
+	/**
+	 * Notifies the specified observers of the task result in the same way as
+	 * {@link #notifyObservers(TaskResult)}, but leaves the observers
+	 * associated with the task untouched.
+	 * 
+	 * @param <V>
+	 *            the type of task's computation result
+	 * @param taskResult
+	 *            The result of task computation
+	 * @param observers
+	 *            the observers to be notified
+	 * @throws NullPointerException
+	 *             if
+	 *             <li>{@code taskResult} is {@code null}</li>
+	 *             <li>{@code observers} is {@code null}</li>
+	 */
+	<V> void notifyObservers(TaskResult<V> taskResult, @SuppressWarnings("rawtypes") IObserver... observers);
 }
@@ -0,0 +1,41 @@
+package org.jongshin.executor.oberservers;
+
+import org.jongshin.executor.task.StreamingTask;
+
+/**
+ * The observer, which receives the elements of a {@link StreamingTask} while
+ * the task is running. Elements are delivered only on demand: the task waits
+ * in {@link StreamingTask#emit(Object)} until every subscribed observer has
+ * requested more elements through its {@link IStreamSubscription}, so the
+ * slowest observer paces the task and no elements are buffered.
+ *
+ * <p>
+ * Once the task has finished, the observer is notified as an
+ * {@link IObserver} with the number of emitted elements.
+ *
+ * @author Vitalii_Kim
+ *
+ * @param <E>
+ *            The type of stream elements
+ */
+public interface IStreamObserver<E> extends IObserver<Long> {
+
+	/**
+	 * Receives the subscription, when the observer is bound to the task. The
+	 * observer has no demand until it calls
+	 * {@link IStreamSubscription#request(long)}.
+	 *
+	 * @param subscription
+	 *            the subscription of the observer
+	 */
+	void onSubscribe(IStreamSubscription subscription);
+
+	/**
+	 * Receives the next element. Called in the thread running the task, the
+	 * task doesn't continue until the method returns.
+	 *
+	 * @param element
+	 *            the emitted element
+	 */
+	void onNext(E element);
+}
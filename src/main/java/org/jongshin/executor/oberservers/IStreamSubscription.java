@@ -0,0 +1,27 @@
+package org.jongshin.executor.oberservers;
+
+/**
+ * The link between a streaming task and one of its
+ * {@link IStreamObserver}s, through which the observer controls the flow of
+ * elements.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+public interface IStreamSubscription {
+
+	/**
+	 * Allows the task to emit {@code n} more elements to the observer. The
+	 * demand is accumulated, {@link Long#MAX_VALUE} means unbounded demand.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if {@code n} <= 0
+	 */
+	void request(long n);
+
+	/**
+	 * Stops the delivery of elements to the observer. The task is canceled
+	 * once all of its observers have canceled their subscriptions.
+	 */
+	void cancel();
+}
@@ -0,0 +1,228 @@
+package org.jongshin.executor.oberservers;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+import org.jongshin.executor.data.ProcessorException;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Delivers notifications on dedicated notifier threads. Every notifier thread
+ * drains its own bounded queue, and notifications of the same task are always
+ * routed to the same queue, so they are delivered in the order they were
+ * dispatched.
+ * <p>
+ * Only notifications, which are followed by further ones of the same binding,
+ * like the runs of a periodic task, may be dropped by the overflow policy.
+ * Terminal notifications wait for room in the queue instead.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+class NotificationDispatcher {
+
+	private static final Logger LOGGER = Logger.getLogger(NotificationDispatcher.class);
+	private static final long SHUTDOWN_CHECK_MILLIS = 100;
+
+	private final List<BlockingQueue<Notification>> queues;
+	private final List<Thread> notifiers;
+	private final OverflowPolicy policy;
+	private final LongAdder droppedCount;
+	private volatile boolean shutdown;
+
+	/**
+	 * @param notifierThreads
+	 *            the number of notifier threads
+	 * @param queueCapacity
+	 *            the capacity of the queue of every notifier thread
+	 * @param policy
+	 *            the action taken when a queue is full
+	 */
+	NotificationDispatcher(int notifierThreads, int queueCapacity, OverflowPolicy policy) {
+		Preconditions.checkArgument(notifierThreads > 0, "Illegal notifierThreads=%s", notifierThreads);
+		Preconditions.checkArgument(queueCapacity > 0, "Illegal queueCapacity=%s", queueCapacity);
+		Preconditions.checkNotNull(policy);
+		this.policy = policy;
+		droppedCount = new LongAdder();
+		queues = new ArrayList<>(notifierThreads);
+		notifiers = new ArrayList<>(notifierThreads);
+		for (int i = 0; i < notifierThreads; i++) {
+			BlockingQueue<Notification> queue = new ArrayBlockingQueue<>(queueCapacity);
+			queues.add(queue);
+			Thread notifier = new Thread(() -> {
+				drain(queue);
+			}, "observer-notifier-" + i);
+			notifier.setDaemon(true);
+			notifiers.add(notifier);
+			notifier.start();
+		}
+	}
+
+	/**
+	 * Queues the notification of the specified task.
+	 *
+	 * @param task
+	 *            the task, which notification is ordered by
+	 * @param notification
+	 *            the notification to deliver
+	 * @param droppable
+	 *            whether the overflow policy may drop the notification
+	 */
+	void dispatch(Object task, Runnable notification, boolean droppable) {
+		int index = (task.hashCode() & Integer.MAX_VALUE) % queues.size();
+		BlockingQueue<Notification> queue = queues.get(index);
+		Notification queued = new Notification(notification, droppable);
+		if (shutdown || Thread.currentThread() == notifiers.get(index)) {
+			// nobody drains the queue any more, or the notifier itself would wait for it
+			run(queued);
+			return;
+		}
+		if (!queue.offer(queued)) {
+			overflow(task, queue, queued, droppable);
+		}
+		if (shutdown) {
+			// the notifier may have finished its last drain before the notification has been queued
+			runQueued(queue);
+		}
+	}
+
+	private void overflow(Object task, BlockingQueue<Notification> queue, Notification queued, boolean droppable) {
+		switch (policy) {
+		case BLOCK: {
+			put(queue, queued);
+			break;
+		}
+		case DROP_NEWEST: {
+			if (droppable) {
+				droppedCount.increment();
+				LOGGER.warn(String.format("Notification queue is full, notification has been dropped [task=%s]",
+						task));
+			} else {
+				put(queue, queued);
+			}
+			break;
+		}
+		case DROP_OLDEST: {
+			while (!queue.offer(queued)) {
+				if (!dropOldest(queue)) {
+					if (droppable) {
+						droppedCount.increment();
+						LOGGER.warn(String.format(
+								"Notification queue is full, notification has been dropped [task=%s]", task));
+					} else {
+						put(queue, queued);
+					}
+					break;
+				}
+			}
+			break;
+		}
+		default:
+			throw new IllegalStateException(String.format("Unknown policy=%s", policy));
+		}
+	}
+
+	private boolean dropOldest(BlockingQueue<Notification> queue) {
+		for (Iterator<Notification> iterator = queue.iterator(); iterator.hasNext();) {
+			if (iterator.next().droppable) {
+				iterator.remove();
+				droppedCount.increment();
+				LOGGER.warn("Notification queue is full, the oldest notification has been dropped");
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Waits for room in the queue. Once the notifier has stopped, the queue is
+	 * drained by the waiting thread instead.
+	 */
+	private void put(BlockingQueue<Notification> queue, Notification notification) {
+		try {
+			while (!queue.offer(notification, SHUTDOWN_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+				if (shutdown) {
+					runQueued(queue);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ProcessorException(e);
+		}
+	}
+
+	/**
+	 * Stops the notifier threads once they have delivered the queued
+	 * notifications. Notifications dispatched afterwards are delivered in the
+	 * dispatching thread, as well as the ones queued while the notifier has
+	 * been stopping.
+	 */
+	void shutdown() {
+		shutdown = true;
+	}
+
+	/**
+	 * Returns the number of notifications waiting for a notifier thread.
+	 */
+	int getQueueDepth() {
+		int depth = 0;
+		for (BlockingQueue<Notification> queue : queues) {
+			depth += queue.size();
+		}
+		return depth;
+	}
+
+	/**
+	 * Returns the number of notifications dropped by the overflow policy.
+	 */
+	long getDroppedCount() {
+		return droppedCount.sum();
+	}
+
+	private void drain(BlockingQueue<Notification> queue) {
+		// polls instead of being interrupted, which could hit an observer
+		while (!shutdown) {
+			try {
+				Notification notification = queue.poll(SHUTDOWN_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+				if (notification != null) {
+					run(notification);
+				}
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+		runQueued(queue);
+	}
+
+	private void runQueued(BlockingQueue<Notification> queue) {
+		Notification notification;
+		while ((notification = queue.poll()) != null) {
+			run(notification);
+		}
+	}
+
+	private void run(Notification notification) {
+		try {
+			notification.action.run();
+		} catch (RuntimeException e) {
+			LOGGER.error("Notification has failed", e);
+		}
+	}
+
+	private static final class Notification {
+		private final Runnable action;
+		private final boolean droppable;
+
+		private Notification(Runnable action, boolean droppable) {
+			this.action = action;
+			this.droppable = droppable;
+		}
+	}
+}
@@ -1,19 +1,22 @@
 package org.jongshin.executor.oberservers;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.log4j.Logger;
 import org.jongshin.executor.data.Execution;
-import org.jongshin.executor.data.ProcessorException;
 import org.jongshin.executor.data.ScheduledExecution;
 import org.jongshin.executor.data.TaskResult;
 import org.jongshin.executor.task.ITask;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * The implementation of {@link IObserverManager}.
@@ -23,13 +26,48 @@ import com.google.common.base.Preconditions;
  */
 public class ObserverManagerImpl implements IObserverManager {
 
+	private static final Logger LOGGER = Logger.getLogger(ObserverManagerImpl.class);
+
 	@SuppressWarnings("rawtypes")
 	private Map<ITask, Collection<IObserver>> observers;
-	private Lock lock;
+	private NotificationDispatcher dispatcher;
+	@SuppressWarnings("rawtypes")
+	private Map<IBatchObserver, BatchAccumulator> accumulators;
+	private volatile ScheduledExecutorService batchFlusher;
+	private volatile boolean shutdown;
 
+	/**
+	 * Creates the manager, which notifies observers in the thread calling
+	 * {@link #notifyObservers(TaskResult)}.
+	 */
 	public ObserverManagerImpl() {
 		observers = new ConcurrentHashMap<>();
-		lock = new ReentrantLock();
+		accumulators = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Creates the manager, which notifies observers asynchronously on
+	 * dedicated notifier threads. Notifications of the same task are delivered
+	 * in order, and a failing observer doesn't prevent others from being
+	 * notified.
+	 * 
+	 * @param notifierThreads
+	 *            the number of notifier threads
+	 * @param queueCapacity
+	 *            the number of notifications every notifier thread may queue
+	 * @param overflowPolicy
+	 *            the action taken when the queue of a notifier thread is full
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if
+	 *             <li>{@code notifierThreads} <= 0</li>
+	 *             <li>{@code queueCapacity} <= 0</li>
+	 * @throws NullPointerException
+	 *             if {@code overflowPolicy} is {@code null}
+	 */
+	public ObserverManagerImpl(int notifierThreads, int queueCapacity, OverflowPolicy overflowPolicy) {
+		this();
+		dispatcher = new NotificationDispatcher(notifierThreads, queueCapacity, overflowPolicy);
 	}
 
 	@Override
@@ -39,18 +77,8 @@ public class ObserverManagerImpl implements IObserverManager {
 		@SuppressWarnings("rawtypes")
 		Collection<IObserver> bindedObservers = observers.get(task);
 		if (bindedObservers == null) {
-			lock.lock();
-			try {
-				bindedObservers = observers.get(task);
-				if (bindedObservers == null) {
-					if (bindedObservers == null) {
-						bindedObservers = new CopyOnWriteArraySet<>();
-						observers.put(task, bindedObservers);
-					}
-				}
-			} finally {
-				lock.unlock();
-			}
+			// binds atomically per task, the plain lookup keeps hits off the bin lock
+			bindedObservers = observers.computeIfAbsent(task, key -> new CopyOnWriteArraySet<>());
 		}
 		bindedObservers.add(observer);
 	}
@@ -80,38 +108,196 @@ public class ObserverManagerImpl implements IObserverManager {
 		ITask task = taskResult.getTask();
 		@SuppressWarnings("rawtypes")
 		Collection<IObserver> bindedObservers = observers.get(task);
+		Execution execution = taskResult.getExecution();
 		if (bindedObservers == null) {
-			throw new ProcessorException(String.format("Can't find any observer [task=%s]", task));
+			// a submitted task may have no observers, a schedule is always bound to some
+			if (execution instanceof ScheduledExecution || execution.getParentExecution() instanceof ScheduledExecution) {
+				LOGGER.warn(String.format("Can't find any observer [task=%s, taskStatus=%s]", task,
+						taskResult.getTaskStatus()));
+			}
+			return;
 		}
-		Execution execution = taskResult.getExecution();
-		bindedObservers.stream().forEach(observer -> {
-			switch (execution.getTaskStatus()) {
-			case CANCELED: {
-				observer.notifyCanceled();
-				break;
+		if (dispatcher == null) {
+			bindedObservers.stream().forEach(observer -> {
+				notifyObserver(observer, taskResult);
+			});
+		} else {
+			dispatch(taskResult, bindedObservers.toArray(new IObserver<?>[0]));
+		}
+		if (execution.isCanceled() || isTerminal(execution)) {
+			// observers bound again by a replacing schedule are kept, even if they are equal
+			removeSame(observers, task, bindedObservers);
+		}
+	}
+
+	@Override
+	public <V> void notifyObservers(TaskResult<V> taskResult, @SuppressWarnings("rawtypes") IObserver... observers) {
+		Preconditions.checkNotNull(taskResult);
+		Preconditions.checkNotNull(observers);
+		if (dispatcher == null) {
+			for (@SuppressWarnings("rawtypes")
+			IObserver observer : observers) {
+				notifyObserver(observer, taskResult);
 			}
-			case FAILED: {
-				observer.notifyFailed((Throwable) taskResult.getData());
-				break;
+		} else {
+			dispatch(taskResult, observers.clone());
+		}
+	}
+
+	private <V> void dispatch(TaskResult<V> taskResult, @SuppressWarnings("rawtypes") IObserver[] snapshot) {
+		@SuppressWarnings("rawtypes")
+		ITask task = taskResult.getTask();
+		dispatcher.dispatch(task, () -> {
+			for (@SuppressWarnings("rawtypes")
+			IObserver observer : snapshot) {
+				try {
+					notifyObserver(observer, taskResult);
+				} catch (RuntimeException e) {
+					LOGGER.error(String.format("Observer has failed [observer=%s, task=%s]", observer, task), e);
+				}
 			}
-			case COMPLETED: {
-				observer.notifyCompleted(taskResult.getData());
-				break;
+		}, !isTerminal(taskResult.getExecution()));
+	}
+
+	/**
+	 * Removes the value of the key only while it is the very specified value,
+	 * unlike {@link Map#remove(Object, Object)}, which compares by equality.
+	 */
+	private static <T, C> void removeSame(Map<T, C> map, T key, C value) {
+		map.computeIfPresent(key, (k, current) -> current == value ? null : current);
+	}
+
+	/**
+	 * Checks, whether no more notifications follow the one of the specified
+	 * execution. Only the runs of a periodic or cron schedule, which is not
+	 * canceled, are followed by further ones. The schedule is the execution
+	 * itself, or its parent for the minors of an aggregated task.
+	 */
+	private static boolean isTerminal(Execution execution) {
+		Execution scheduledExecution = execution.getParentExecution() == null ? execution
+				: execution.getParentExecution();
+		return !(scheduledExecution instanceof ScheduledExecution)
+				|| !((ScheduledExecution) scheduledExecution).isRepeatable() || scheduledExecution.isCanceled();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <V> void notifyObserver(@SuppressWarnings("rawtypes") IObserver observer, TaskResult<V> taskResult) {
+		if (observer instanceof IBatchObserver) {
+			accumulate((IBatchObserver<V>) observer, taskResult);
+			return;
+		}
+		switch (taskResult.getTaskStatus()) {
+		case CANCELED: {
+			observer.notifyCanceled();
+			break;
+		}
+		case FAILED:
+		case TIMED_OUT: {
+			observer.notifyFailed((Throwable) taskResult.getData());
+			break;
+		}
+		case COMPLETED: {
+			observer.notifyCompleted(taskResult.getData());
+			break;
+		}
+		default:
+			break;
+		}
+	}
+
+	private <V> void accumulate(IBatchObserver<V> observer, TaskResult<V> taskResult) {
+		switch (taskResult.getTaskStatus()) {
+		case CANCELED:
+		case FAILED:
+		case COMPLETED:
+		case TIMED_OUT:
+			break;
+		default:
+			return;
+		}
+		if (shutdown) {
+			// no batch window can be timed any more
+			observer.notifyBatch(Collections.singletonList(taskResult));
+			return;
+		}
+		while (true) {
+			BatchAccumulator accumulator = accumulators.get(observer);
+			if (accumulator == null) {
+				BatchAccumulator newAccumulator = new BatchAccumulator(observer);
+				accumulator = accumulators.putIfAbsent(observer, newAccumulator);
+				if (accumulator == null) {
+					accumulator = newAccumulator;
+					getBatchFlusher().schedule(() -> {
+						accumulators.remove(observer, newAccumulator);
+						newAccumulator.close();
+					}, observer.getMaxBatchDelayMillis(), TimeUnit.MILLISECONDS);
+				}
 			}
-			default:
-				break;
+			if (accumulator.add(taskResult)) {
+				return;
 			}
+		}
+	}
+
+	/**
+	 * Returns the timer of batch windows, which is started with the first
+	 * batch, so no thread is kept without batch observers.
+	 */
+	private ScheduledExecutorService getBatchFlusher() {
+		ScheduledExecutorService flusher = batchFlusher;
+		if (flusher == null) {
+			synchronized (this) {
+				if (batchFlusher == null) {
+					batchFlusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+							.setNameFormat("observer-batch-flusher").setDaemon(true).build());
+				}
+				flusher = batchFlusher;
+			}
+		}
+		return flusher;
+	}
+
+	/**
+	 * Delivers all accumulated batches immediately.
+	 */
+	public void flushBatches() {
+		accumulators.forEach((observer, accumulator) -> {
+			accumulators.remove(observer, accumulator);
+			accumulator.close();
 		});
-		if (execution.isCanceled()) {
-			observers.remove(task);
+	}
+
+	/**
+	 * Stops the notifier threads once they have delivered the queued
+	 * notifications, delivers the accumulated batches and stops the timer of
+	 * batch windows. Later notifications are delivered in the notifying
+	 * thread, batch observers get them as batches of one.
+	 */
+	public void shutdown() {
+		shutdown = true;
+		if (dispatcher != null) {
+			dispatcher.shutdown();
 		}
-		Execution parentExecution = execution.getParentExecution();
-		if (parentExecution instanceof ScheduledExecution) {
-			if (!((ScheduledExecution) parentExecution).isRepeatable()) {
-				observers.remove(task);
+		flushBatches();
+		synchronized (this) {
+			if (batchFlusher != null) {
+				batchFlusher.shutdown();
 			}
-		} else {
-			observers.remove(task);
 		}
 	}
+
+	/**
+	 * Returns the number of notifications waiting for a notifier thread, or
+	 * {@code 0} if observers are notified synchronously.
+	 */
+	public int getNotificationQueueDepth() {
+		return dispatcher == null ? 0 : dispatcher.getQueueDepth();
+	}
+
+	/**
+	 * Returns the number of notifications dropped by {@link OverflowPolicy}.
+	 */
+	public long getDroppedNotificationCount() {
+		return dispatcher == null ? 0 : dispatcher.getDroppedCount();
+	}
 }
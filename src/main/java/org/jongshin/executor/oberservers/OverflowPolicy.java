@@ -0,0 +1,26 @@
+package org.jongshin.executor.oberservers;
+
+/**
+ * Represents the action taken by asynchronous notification, when the queue of
+ * a notifier thread is full.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public enum OverflowPolicy {
+	/**
+	 * Blocks the notifying thread until the queue has room.
+	 */
+	BLOCK,
+	/**
+	 * Drops the new notification of a periodic run. Terminal notifications
+	 * block the notifying thread until the queue has room.
+	 */
+	DROP_NEWEST,
+	/**
+	 * Drops the oldest queued notification of a periodic run and queues the
+	 * new one. If there is none, a terminal notification blocks the notifying
+	 * thread until the queue has room, a periodic one is dropped.
+	 */
+	DROP_OLDEST;
+}
@@ -0,0 +1,248 @@
+package org.jongshin.executor.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jongshin.executor.task.TaskPriority;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Limits the number of actions, which run at the same time. Admitted actions
+ * are handed over to their downstream executor. Actions over the limit wait
+ * in a queue without holding a thread and are handed over in order of
+ * arrival, when a running action finishes. Admission is lock-free.
+ * <p>
+ * An action may be limited by several bulkheads. It is admitted only when it
+ * gets a permit of every one of them at once, and waits in the queue of a
+ * bulkhead without free permit holding none, so a waiting action never keeps
+ * a permit from the actions of another bulkhead.
+ * <p>
+ * Waiting actions are handed over by the thread, which releases a permit,
+ * usually a worker. Such hand-offs are made through
+ * {@link OverloadHandler#runInternally(Runnable)}, so they neither block the
+ * worker nor run the action in it.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+class Bulkhead {
+
+	private final int limit;
+	private final AtomicInteger running;
+	private final Queue<Permit> waiting;
+
+	/**
+	 * @param limit
+	 *            the maximum number of actions, which run at the same time
+	 *
+	 * @throws IllegalArgumentException
+	 *             if {@code limit} <= 0
+	 */
+	Bulkhead(int limit) {
+		Preconditions.checkArgument(limit > 0, "Illegal limit=%s", limit);
+		this.limit = limit;
+		running = new AtomicInteger();
+		waiting = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * Hands the action over to the downstream executor if the limit allows,
+	 * otherwise queues it.
+	 *
+	 * @param action
+	 *            the action to run
+	 * @param downstream
+	 *            the executor, which runs the action once it is admitted
+	 *
+	 * @throws RuntimeException
+	 *             if the downstream executor rejects the action, which is
+	 *             admitted immediately. A queued action rejected later is
+	 *             failed through {@link Rejectable#reject()}.
+	 */
+	void execute(Runnable action, Executor downstream) {
+		execute(action, downstream, this);
+	}
+
+	/**
+	 * Hands the action over to the downstream executor once it holds a permit
+	 * of every specified bulkhead, otherwise queues it.
+	 *
+	 * @param action
+	 *            the action to run
+	 * @param downstream
+	 *            the executor, which runs the action once it is admitted
+	 * @param bulkheads
+	 *            the bulkheads, which limit the action
+	 *
+	 * @throws RuntimeException
+	 *             if the downstream executor rejects the action, which is
+	 *             admitted immediately. A queued action rejected later is
+	 *             failed through {@link Rejectable#reject()}.
+	 */
+	static void execute(Runnable action, Executor downstream, Bulkhead... bulkheads) {
+		Preconditions.checkNotNull(action);
+		Preconditions.checkNotNull(downstream);
+		Preconditions.checkArgument(bulkheads.length > 0, "No bulkheads");
+		Permit permit = new Permit(action, downstream, bulkheads);
+		Bulkhead busy = null;
+		for (Bulkhead bulkhead : bulkheads) {
+			if (!bulkhead.waiting.isEmpty()) {
+				// doesn't overtake the waiting actions
+				busy = bulkhead;
+				break;
+			}
+		}
+		if (busy == null) {
+			busy = permit.tryAcquire(null);
+			if (busy == null) {
+				try {
+					downstream.execute(permit);
+				} catch (RuntimeException e) {
+					permit.release(null);
+					throw e;
+				}
+				return;
+			}
+		}
+		busy.waiting.add(permit);
+		busy.drain();
+	}
+
+	private boolean tryAcquire() {
+		while (true) {
+			int current = running.get();
+			if (current >= limit) {
+				return false;
+			}
+			if (running.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Hands waiting actions over while permits are free. Both the thread,
+	 * which queues an action, and the one, which releases a permit, drain, so
+	 * no action is left waiting with a free permit. An action, which doesn't
+	 * get the permit of another bulkhead, moves to the queue of that one.
+	 */
+	private void drain() {
+		while (!waiting.isEmpty() && tryAcquire()) {
+			Permit permit = waiting.poll();
+			if (permit == null) {
+				running.decrementAndGet();
+				continue;
+			}
+			Bulkhead busy = permit.tryAcquire(this);
+			if (busy != null) {
+				running.decrementAndGet();
+				busy.waiting.add(permit);
+				busy.drain();
+				continue;
+			}
+			try {
+				OverloadHandler.runInternally(() -> {
+					permit.downstream.execute(permit);
+				});
+			} catch (RuntimeException e) {
+				running.decrementAndGet();
+				permit.release(this);
+				reject(permit.action);
+			}
+		}
+	}
+
+	private static void reject(Runnable action) {
+		if (action instanceof Rejectable) {
+			((Rejectable) action).reject();
+		}
+	}
+
+	int getWaitingCount() {
+		return waiting.size();
+	}
+
+	/**
+	 * Runs the admitted action and releases its permits. Carries the priority
+	 * of the action into the downstream queue, and releases the permits if
+	 * the downstream executor drops it.
+	 */
+	private static final class Permit implements Runnable, Prioritized, Rejectable {
+		private final Runnable action;
+		private final Executor downstream;
+		private final Bulkhead[] bulkheads;
+
+		Permit(Runnable action, Executor downstream, Bulkhead[] bulkheads) {
+			this.action = action;
+			this.downstream = downstream;
+			this.bulkheads = bulkheads;
+		}
+
+		/**
+		 * Takes a permit of every bulkhead but the acquired one, or none of
+		 * them.
+		 *
+		 * @param acquired
+		 *            the bulkhead, which permit is already held, or
+		 *            {@code null}
+		 * @return the bulkhead without free permit, or {@code null} if all
+		 *         permits are held
+		 */
+		private Bulkhead tryAcquire(Bulkhead acquired) {
+			for (int i = 0; i < bulkheads.length; i++) {
+				if (bulkheads[i] != acquired && !bulkheads[i].tryAcquire()) {
+					for (int j = 0; j < i; j++) {
+						if (bulkheads[j] != acquired) {
+							bulkheads[j].running.decrementAndGet();
+							bulkheads[j].drain();
+						}
+					}
+					return bulkheads[i];
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public void run() {
+			try {
+				action.run();
+			} finally {
+				release(null);
+			}
+		}
+
+		@Override
+		public void reject() {
+			try {
+				Bulkhead.reject(action);
+			} finally {
+				release(null);
+			}
+		}
+
+		/**
+		 * Releases the permits of all bulkheads but the specified one.
+		 */
+		private void release(Bulkhead released) {
+			for (Bulkhead bulkhead : bulkheads) {
+				if (bulkhead != released) {
+					bulkhead.running.decrementAndGet();
+				}
+			}
+			for (Bulkhead bulkhead : bulkheads) {
+				if (bulkhead != released) {
+					bulkhead.drain();
+				}
+			}
+		}
+
+		@Override
+		public TaskPriority getPriority() {
+			return PriorityTaskQueue.priorityOf(action);
+		}
+	}
+}
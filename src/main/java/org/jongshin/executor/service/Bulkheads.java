@@ -0,0 +1,104 @@
+package org.jongshin.executor.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.jongshin.executor.data.CompositeKey;
+import org.jongshin.executor.task.AbstractTask;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Holds the {@link Bulkhead}s configured by {@link ProcessorServiceConfig}
+ * and routes executed tasks through them. A task, which is limited both by
+ * its class and by its major key, is admitted only when both bulkheads have a
+ * free permit.
+ * <p>
+ * Bulkheads of major keys are created on first use and live as long as the
+ * service, so the number of distinct majors should be bounded.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+class Bulkheads {
+
+	private final ProcessorServiceConfig config;
+	private final Executor downstream;
+	private final Map<Class<?>, Bulkhead> byTaskClass;
+	private final Map<Object, Bulkhead> byMajorKey;
+
+	Bulkheads(ProcessorServiceConfig config, Executor downstream) {
+		Preconditions.checkNotNull(config);
+		Preconditions.checkNotNull(downstream);
+		this.config = config;
+		this.downstream = downstream;
+		byTaskClass = new HashMap<>();
+		config.getTaskClassConcurrencies().forEach((taskClass, limit) -> {
+			byTaskClass.put(taskClass, new Bulkhead(limit));
+		});
+		byMajorKey = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Returns {@code true} if no concurrency limit is configured.
+	 */
+	boolean isEmpty() {
+		return byTaskClass.isEmpty() && !config.hasMajorKeyConcurrency();
+	}
+
+	/**
+	 * Runs the action of the specified task through the bulkheads, which
+	 * limit the task.
+	 * 
+	 * @throws RuntimeException
+	 *             if the downstream executor rejects the action, which is
+	 *             admitted immediately
+	 */
+	<K, V> void execute(AbstractTask<K, V> task, Runnable action) {
+		Bulkhead classBulkhead = byTaskClass.get(task.getClass());
+		Bulkhead majorBulkhead = getMajorBulkhead(task.getKey());
+		if (majorBulkhead == null) {
+			if (classBulkhead == null) {
+				downstream.execute(action);
+			} else {
+				classBulkhead.execute(action, downstream);
+			}
+		} else if (classBulkhead == null) {
+			majorBulkhead.execute(action, downstream);
+		} else {
+			Bulkhead.execute(action, downstream, majorBulkhead, classBulkhead);
+		}
+	}
+
+	private Bulkhead getMajorBulkhead(Object key) {
+		if (!(key instanceof CompositeKey)) {
+			return null;
+		}
+		Object major = ((CompositeKey<?>) key).getMajor();
+		Bulkhead bulkhead = byMajorKey.get(major);
+		if (bulkhead == null) {
+			int limit = config.getMajorKeyConcurrency(major);
+			if (limit == ProcessorServiceConfig.UNBOUNDED) {
+				return null;
+			}
+			bulkhead = byMajorKey.computeIfAbsent(major, majorKey -> new Bulkhead(limit));
+		}
+		return bulkhead;
+	}
+
+	/**
+	 * Returns the number of tasks waiting for a permit of any bulkhead.
+	 */
+	int getWaitingCount() {
+		int waiting = 0;
+		for (Bulkhead bulkhead : byTaskClass.values()) {
+			waiting += bulkhead.getWaitingCount();
+		}
+		for (Bulkhead bulkhead : byMajorKey.values()) {
+			waiting += bulkhead.getWaitingCount();
+		}
+		return waiting;
+	}
+}
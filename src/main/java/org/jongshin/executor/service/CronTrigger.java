@@ -0,0 +1,74 @@
+package org.jongshin.executor.service;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jongshin.executor.data.CronExpression;
+import org.jongshin.executor.task.TaskPriority;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Runs an action at the fire times of a {@link CronExpression}. The next fire
+ * time is computed from the wall clock once the previous run has finished,
+ * so the fire times missed by a long run are skipped and a clock adjustment
+ * is caught up with by the next run.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+class CronTrigger extends RecurringTrigger {
+
+	private final CronExpression cronExpression;
+	private volatile long nextFireMillis;
+
+	/**
+	 * @param scheduler
+	 *            the scheduler, which runs the action
+	 * @param command
+	 *            the action to run
+	 * @param priority
+	 *            the priority of the action on the scheduler
+	 * @param cronExpression
+	 *            the fire times of the action
+	 */
+	CronTrigger(ScheduledExecutorService scheduler, Runnable command, TaskPriority priority,
+			CronExpression cronExpression) {
+		super(scheduler, command, priority);
+		Preconditions.checkNotNull(cronExpression);
+		this.cronExpression = cronExpression;
+	}
+
+	/**
+	 * Arms the first run.
+	 *
+	 * @return this trigger
+	 */
+	CronTrigger start() {
+		nextFireMillis = System.currentTimeMillis();
+		arm(getNextDelayNanos());
+		return this;
+	}
+
+	@Override
+	protected long getNextDelayNanos() {
+		long now = System.currentTimeMillis();
+		// a run, which has finished before its fire time, isn't repeated
+		long next = cronExpression.nextFireMillis(Math.max(now, nextFireMillis));
+		if (next == CronExpression.NEVER) {
+			return NO_NEXT_RUN;
+		}
+		nextFireMillis = next;
+		return TimeUnit.MILLISECONDS.toNanos(next - now);
+	}
+
+	@Override
+	public long getDelay(TimeUnit unit) {
+		return unit.convert(nextFireMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public String toString() {
+		return "CronTrigger [cronExpression=" + cronExpression + ", done=" + isDone() + "]";
+	}
+}
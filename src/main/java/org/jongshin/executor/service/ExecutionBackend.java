@@ -0,0 +1,20 @@
+package org.jongshin.executor.service;
+
+/**
+ * Represents the kind of threads, which run executed tasks and the minor
+ * tasks of aggregated tasks.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public enum ExecutionBackend {
+	/**
+	 * Platform threads from thread pools.
+	 */
+	PLATFORM_THREADS,
+	/**
+	 * A virtual thread per task. Suits tasks, which block on I/O. Requires
+	 * Java 21 or later at runtime.
+	 */
+	VIRTUAL_THREADS;
+}
@@ -0,0 +1,97 @@
+package org.jongshin.executor.service;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jongshin.executor.data.MisfirePolicy;
+import org.jongshin.executor.task.TaskPriority;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Runs an action at a fixed rate, at every due time {@code start + k *
+ * period}. The due times missed while a previous run was running or the
+ * scheduler was late are handled by the {@link MisfirePolicy}.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+class FixedRateTrigger extends RecurringTrigger {
+
+	private final long periodNanos;
+	private final MisfirePolicy misfirePolicy;
+	private volatile long nextFireNanos;
+
+	/**
+	 * @param scheduler
+	 *            the scheduler, which runs the action
+	 * @param command
+	 *            the action to run
+	 * @param priority
+	 *            the priority of the action on the scheduler
+	 * @param periodNanos
+	 *            the time between the due times of two runs
+	 * @param misfirePolicy
+	 *            the handling of missed due times
+	 */
+	FixedRateTrigger(ScheduledExecutorService scheduler, Runnable command, TaskPriority priority, long periodNanos,
+			MisfirePolicy misfirePolicy) {
+		super(scheduler, command, priority);
+		Preconditions.checkArgument(periodNanos > 0, "Illegal periodNanos=%s", periodNanos);
+		Preconditions.checkNotNull(misfirePolicy);
+		this.periodNanos = periodNanos;
+		this.misfirePolicy = misfirePolicy;
+	}
+
+	/**
+	 * Arms the first run.
+	 *
+	 * @param initialDelayNanos
+	 *            the time to delay the first run
+	 * @return this trigger
+	 */
+	FixedRateTrigger start(long initialDelayNanos) {
+		nextFireNanos = System.nanoTime() + initialDelayNanos;
+		arm(initialDelayNanos);
+		return this;
+	}
+
+	/**
+	 * Moves {@link #nextFireNanos} from the due time of the finished run to
+	 * the due time of the next one.
+	 */
+	@Override
+	protected long getNextDelayNanos() {
+		long now = System.nanoTime();
+		long lastFireNanos = nextFireNanos;
+		long next = lastFireNanos + periodNanos;
+		if (next - now <= 0) {
+			long missed = (now - lastFireNanos) / periodNanos;
+			switch (misfirePolicy) {
+			case SKIP:
+				next = lastFireNanos + (missed + 1) * periodNanos;
+				break;
+			case COALESCE:
+				// the latest missed due time, which is not in the future
+				next = lastFireNanos + missed * periodNanos;
+				break;
+			case CATCH_UP:
+			default:
+				break;
+			}
+		}
+		nextFireNanos = next;
+		return next - now;
+	}
+
+	@Override
+	public long getDelay(TimeUnit unit) {
+		return unit.convert(nextFireNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public String toString() {
+		return "FixedRateTrigger [periodNanos=" + periodNanos + ", misfirePolicy=" + misfirePolicy + ", done="
+				+ isDone() + "]";
+	}
+}
@@ -1,11 +1,19 @@
 package org.jongshin.executor.service;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
+import org.jongshin.executor.data.CronExpression;
 import org.jongshin.executor.data.Execution;
+import org.jongshin.executor.data.GraphExecution;
+import org.jongshin.executor.data.MisfirePolicy;
 import org.jongshin.executor.data.ScheduledExecution;
+import org.jongshin.executor.data.TaskRejectedException;
 import org.jongshin.executor.data.TaskStatus;
 import org.jongshin.executor.oberservers.IObserver;
+import org.jongshin.executor.task.DependentTask;
 import org.jongshin.executor.task.SingleTask;
 
 /**
@@ -40,7 +48,9 @@ public interface IProcessorService {
 	 * @throws IllegalArgumentException
 	 *             if
 	 *             <li>{@code initialDelay} <= 0</li>
-	 *             <li>or no one observer has been provided</li>
+	 *             <li>no one observer has been provided</li>
+	 *             <li>or a task of another class with an equal key is
+	 *             scheduled</li>
 	 * @throws NullPointerException
 	 *             if
 	 *             <li>{@code task} is {@code null}</li>
@@ -79,7 +89,9 @@ public interface IProcessorService {
 	 *             if
 	 *             <li>{@code initialDelay} <= 0</li>
 	 *             <li>{@code period} < 0</li>
-	 *             <li>or no one observer has been provided</li>
+	 *             <li>no one observer has been provided</li>
+	 *             <li>or a task of another class with an equal key is
+	 *             scheduled</li>
 	 * @throws NullPointerException
 	 *             if
 	 *             <li>{@code task} is {@code null}</li>
@@ -89,7 +101,135 @@ public interface IProcessorService {
 			@SuppressWarnings("rawtypes") IObserver... observers);
 
 	/**
-	 * Executes specified task and returns an {@link Execution}.
+	 * Schedules every task of the collection as
+	 * {@link #schedule(long, long, TimeUnit, SingleTask, IObserver...)} does,
+	 * with the same delays and observers. The arguments are validated once for
+	 * all tasks, and no task is scheduled if they are illegal.
+	 *
+	 * @param <K>
+	 *            the type of task's key
+	 * @param <V>
+	 *            the type of task's computation result
+	 *
+	 * @param initialDelay
+	 *            the time to delay first execution
+	 * @param period
+	 *            the delay between the termination of one execution and the
+	 *            commencement of the next, {@code 0} for one-shot actions
+	 * @param timeUnit
+	 *            the time unit of the initialDelay and period parameters
+	 * @param tasks
+	 *            the tasks to execute
+	 * @param observers
+	 *            observers to be notified about execution of every task
+	 * @return the {@link ScheduledExecution}s of the tasks in their order,
+	 *         never returns {@code null}
+	 *
+	 * @throws IllegalArgumentException
+	 *             if
+	 *             <li>{@code initialDelay} <= 0</li>
+	 *             <li>{@code period} < 0</li>
+	 *             <li>no one observer has been provided</li>
+	 *             <li>or a task of another class with an equal key is
+	 *             scheduled</li>
+	 * @throws NullPointerException
+	 *             if
+	 *             <li>{@code tasks} or one of them is {@code null}</li>
+	 *             <li>{@code timeUnit} is {@code null}</li>
+	 */
+	<K, V> List<ScheduledExecution> scheduleAll(long initialDelay, long period, TimeUnit timeUnit,
+			Collection<? extends SingleTask<K, V>> tasks, @SuppressWarnings("rawtypes") IObserver... observers);
+
+	/**
+	 * Creates and executes a periodic action that becomes enabled first after
+	 * the given initial delay, and subsequently at {@code initialDelay + k *
+	 * period}. Executions never overlap: the runs, which have been missed
+	 * while a previous execution was running or the scheduler was late, are
+	 * handled by the {@code misfirePolicy}. The task will only terminate via
+	 * cancellation or termination of the executor.
+	 *
+	 * @param <K>
+	 *            the type of task's key
+	 * @param <V>
+	 *            the type of task's computation result
+	 *
+	 * @param initialDelay
+	 *            the time to delay first execution
+	 * @param period
+	 *            the period between the commencements of successive
+	 *            executions
+	 * @param timeUnit
+	 *            the time unit of the initialDelay and period parameters
+	 * @param misfirePolicy
+	 *            the handling of missed executions
+	 * @param task
+	 *            the task to execute
+	 * @param observers
+	 *            observer to be notified about task execution
+	 * @return {@link ScheduledExecution} never returns {@code null}
+	 *
+	 * @throws IllegalArgumentException
+	 *             if
+	 *             <li>{@code initialDelay} <= 0</li>
+	 *             <li>{@code period} <= 0</li>
+	 *             <li>no one observer has been provided</li>
+	 *             <li>or a task of another class with an equal key is
+	 *             scheduled</li>
+	 * @throws NullPointerException
+	 *             if
+	 *             <li>{@code task} is {@code null}</li>
+	 *             <li>{@code timeUnit} is {@code null}</li>
+	 *             <li>{@code misfirePolicy} is {@code null}</li>
+	 */
+	<K, V> ScheduledExecution scheduleAtFixedRate(long initialDelay, long period, TimeUnit timeUnit,
+			MisfirePolicy misfirePolicy, SingleTask<K, V> task, @SuppressWarnings("rawtypes") IObserver... observers);
+
+	/**
+	 * Creates and executes a periodic action that becomes enabled at the fire
+	 * times of the given cron expression. Executions never overlap: the fire
+	 * times, which have passed while a previous execution was running, are
+	 * skipped. The task will only terminate via cancellation or termination of
+	 * the executor. Cron schedules aren't kept by the journal.
+	 *
+	 * @param <K>
+	 *            the type of task's key
+	 * @param <V>
+	 *            the type of task's computation result
+	 *
+	 * @param cronExpression
+	 *            the fire times of the task
+	 * @param task
+	 *            the task to execute
+	 * @param observers
+	 *            observer to be notified about every execution of the task
+	 * @return {@link ScheduledExecution} never returns {@code null}
+	 *
+	 * @throws IllegalArgumentException
+	 *             if
+	 *             <li>{@code cronExpression} never fires</li>
+	 *             <li>no one observer has been provided</li>
+	 *             <li>or a task of another class with an equal key is
+	 *             scheduled</li>
+	 * @throws NullPointerException
+	 *             if
+	 *             <li>{@code cronExpression} is {@code null}</li>
+	 *             <li>{@code task} is {@code null}</li>
+	 */
+	<K, V> ScheduledExecution schedule(CronExpression cronExpression, SingleTask<K, V> task,
+			@SuppressWarnings("rawtypes") IObserver... observers);
+
+	/**
+	 * Executes specified task and returns an {@link Execution}. While the task
+	 * waits for a worker, it is ordered by its
+	 * {@link org.jongshin.executor.task.TaskPriority}. If the result cache is
+	 * enabled and holds the result of an equal
+	 * {@link org.jongshin.executor.task.ICacheableTask}, the execution is
+	 * completed with it without running the task. A
+	 * {@link org.jongshin.executor.task.BatchableTask} is processed together
+	 * with other tasks of its batch group. A
+	 * {@link org.jongshin.executor.task.StreamingTask} emits its elements to
+	 * the {@link org.jongshin.executor.oberservers.IStreamObserver}s among the
+	 * observers.
 	 * 
 	 * @param <K>
 	 *            the type of task's key
@@ -104,12 +244,96 @@ public interface IProcessorService {
 	 * @return {@link Execution} never returns {@code null}
 	 *
 	 * @throws IllegalArgumentException
-	 *             if no one observer has been provided
+	 *             if
+	 *             <li>no one observer has been provided</li>
+	 *             <li>or a task of another class with an equal key is being
+	 *             executed</li>
 	 * @throws NullPointerException
 	 *             if the task is {@code null}
+	 * @throws TaskRejectedException
+	 *             if the service is overloaded and can't accept the task
 	 */
 	<K, V> Execution execute(SingleTask<K, V> task, @SuppressWarnings("rawtypes") IObserver... observers);
 
+	/**
+	 * Executes every task of the collection as
+	 * {@link #execute(SingleTask, IObserver...)} does, with the same
+	 * observers, in their order. This is a convenience wrapper, which hands
+	 * the tasks off one by one and is no faster than a loop over
+	 * {@link #execute(SingleTask, IObserver...)}; it only differs in the
+	 * rejection semantics: a task rejected because of overload doesn't throw,
+	 * its execution fails with {@link TaskRejectedException} and the other
+	 * tasks are executed anyway.
+	 *
+	 * @param <K>
+	 *            the type of task's key
+	 * @param <V>
+	 *            the type of task's computation result
+	 *
+	 * @param tasks
+	 *            the tasks to execute
+	 * @param observers
+	 *            observers to be notified about execution of every task
+	 *
+	 * @return the {@link Execution}s of the tasks in their order, never
+	 *         returns {@code null}
+	 *
+	 * @throws IllegalArgumentException
+	 *             if no one observer has been provided
+	 * @throws NullPointerException
+	 *             if {@code tasks} or one of them is {@code null}
+	 */
+	<K, V> List<Execution> executeAll(Collection<? extends SingleTask<K, V>> tasks,
+			@SuppressWarnings("rawtypes") IObserver... observers);
+
+	/**
+	 * Executes specified task and returns the completion handle of its
+	 * computation result. Unlike {@link #execute(SingleTask, IObserver...)},
+	 * observers are optional.
+	 * 
+	 * @param <K>
+	 *            the type of task's key
+	 * @param <V>
+	 *            the type of task's computation result
+	 * 
+	 * @param task
+	 *            the task to execute
+	 * @param observers
+	 *            observers to be notified about task execution
+	 * 
+	 * @return the completion handle, which is also available through
+	 *         {@link Execution#getResult()}, never returns {@code null}
+	 *
+	 * @throws NullPointerException
+	 *             if the task is {@code null}
+	 * @throws TaskRejectedException
+	 *             if the service is overloaded and can't accept the task
+	 */
+	<K, V> CompletableFuture<V> submit(SingleTask<K, V> task, @SuppressWarnings("rawtypes") IObserver... observers);
+
+	/**
+	 * Executes the tasks of specified graph. Every task is started as soon as
+	 * all tasks it depends on have completed, and receives their results if it
+	 * is a {@link DependentTask}. If a task fails or is canceled, all tasks
+	 * depending on it are canceled.
+	 * 
+	 * @param <K>
+	 *            the type of task's key
+	 * 
+	 * @param graph
+	 *            the tasks to execute and dependencies between them
+	 * 
+	 * @return {@link GraphExecution} never returns {@code null}
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if
+	 *             <li>a task depends on a key, which is not in the graph</li>
+	 *             <li>or the dependencies form a cycle</li>
+	 * @throws NullPointerException
+	 *             if {@code graph} is {@code null}
+	 */
+	<K> GraphExecution<K> execute(TaskGraph<K> graph);
+
 	/**
 	 * Returns {@link Execution} of task with specified {@code key}.
 	 * 
@@ -133,7 +357,9 @@ public interface IProcessorService {
 	/**
 	 * Attempts to cancel execution of this task. This attempt will fail if the
 	 * task has already completed, has already been cancelled, or could not be
-	 * cancelled for some other reason.
+	 * cancelled for some other reason. A running task is signaled through its
+	 * {@link org.jongshin.executor.data.CancellationToken}, canceling an
+	 * aggregated task signals its running minors.
 	 * 
 	 * @param <K>
 	 *            the type of task's key
@@ -197,4 +423,14 @@ public interface IProcessorService {
 	 *             if {@code key} is {@code null}
 	 */
 	<K, V> boolean isDone(K key);
+
+	/**
+	 * Initiates an orderly shutdown of the threads owned by the service. Tasks
+	 * already handed off to a worker are completed, new tasks are rejected and
+	 * scheduled tasks, which are not due yet, don't run any more. Does not wait
+	 * for running tasks to complete. The schedule journal is flushed and
+	 * closed, so a journaled task, which finishes afterwards, is restored
+	 * once more by the next service.
+	 */
+	void shutdown();
 }
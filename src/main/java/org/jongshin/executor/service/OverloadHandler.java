@@ -0,0 +1,135 @@
+package org.jongshin.executor.service;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jongshin.executor.data.ProcessorException;
+import org.jongshin.executor.data.TaskRejectedException;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Applies {@link OverloadPolicy} to the tasks, which could not be queued by
+ * the bounded executor, and counts the rejected ones.
+ * <p>
+ * {@link OverloadPolicy#BLOCK} and {@link OverloadPolicy#CALLER_RUNS} push
+ * back on external submitters only. The service hands tasks off by itself as
+ * well, from scheduler threads, timers and workers, which mustn't block or run
+ * other tasks inline. Such hand-offs are made through
+ * {@link #runInternally(Runnable)}, and are queued if the queue has room or
+ * rejected right away otherwise.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+class OverloadHandler implements RejectedExecutionHandler {
+
+	private static final ThreadLocal<Boolean> INTERNAL_SUBMISSION = new ThreadLocal<>();
+
+	private final OverloadPolicy policy;
+	private final long submitTimeout;
+	private final TimeUnit submitTimeUnit;
+	private final LongAdder rejectedCount;
+
+	OverloadHandler(OverloadPolicy policy, long submitTimeout, TimeUnit submitTimeUnit) {
+		Preconditions.checkNotNull(policy);
+		Preconditions.checkNotNull(submitTimeUnit);
+		this.policy = policy;
+		this.submitTimeout = submitTimeout;
+		this.submitTimeUnit = submitTimeUnit;
+		rejectedCount = new LongAdder();
+	}
+
+	/**
+	 * Runs the hand-off on behalf of the service rather than of an external
+	 * submitter, so the overload policy neither blocks the current thread nor
+	 * runs the task in it.
+	 * 
+	 * @param submission
+	 *            the hand-off to the executor
+	 */
+	static void runInternally(Runnable submission) {
+		if (INTERNAL_SUBMISSION.get() != null) {
+			submission.run();
+			return;
+		}
+		INTERNAL_SUBMISSION.set(Boolean.TRUE);
+		try {
+			submission.run();
+		} finally {
+			INTERNAL_SUBMISSION.remove();
+		}
+	}
+
+	@Override
+	public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+		if (executor.isShutdown()) {
+			reject("Executor has been shut down");
+		}
+		if (INTERNAL_SUBMISSION.get() != null && (policy == OverloadPolicy.BLOCK
+				|| policy == OverloadPolicy.CALLER_RUNS)) {
+			// requeued if a worker has taken a task meanwhile
+			if (!executor.getQueue().offer(runnable)) {
+				reject("Execution queue is full");
+			}
+			return;
+		}
+		switch (policy) {
+		case BLOCK: {
+			boolean queued;
+			try {
+				queued = executor.getQueue().offer(runnable, submitTimeout, submitTimeUnit);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ProcessorException(e);
+			}
+			if (!queued) {
+				reject(String.format("Execution queue is full after waiting %d %s", submitTimeout,
+						submitTimeUnit));
+			}
+			break;
+		}
+		case REJECT: {
+			reject("Execution queue is full");
+			break;
+		}
+		case CALLER_RUNS: {
+			runnable.run();
+			break;
+		}
+		case DISCARD_OLDEST: {
+			BlockingQueue<Runnable> queue = executor.getQueue();
+			// retried in place, the queue may be refilled by other submitters meanwhile
+			do {
+				// a priority queue drops its lowest priority instead of its head
+				Runnable oldest = queue instanceof PriorityTaskQueue ? ((PriorityTaskQueue) queue).pollLowestPriority()
+						: queue.poll();
+				if (oldest != null) {
+					rejectedCount.increment();
+					if (oldest instanceof Rejectable) {
+						((Rejectable) oldest).reject();
+					}
+				}
+				if (executor.isShutdown()) {
+					reject("Executor has been shut down");
+				}
+			} while (!queue.offer(runnable));
+			break;
+		}
+		default:
+			throw new IllegalStateException(String.format("Unknown policy=%s", policy));
+		}
+	}
+
+	private void reject(String message) {
+		rejectedCount.increment();
+		throw new TaskRejectedException(message);
+	}
+
+	long getRejectedCount() {
+		return rejectedCount.sum();
+	}
+}
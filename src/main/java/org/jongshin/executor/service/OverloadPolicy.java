@@ -0,0 +1,35 @@
+package org.jongshin.executor.service;
+
+import org.jongshin.executor.data.TaskRejectedException;
+
+/**
+ * Represents the action taken by bounded execution mode, when all workers are
+ * busy and the execution queue is full.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public enum OverloadPolicy {
+	/**
+	 * Blocks the submitting thread until the queue has room or the submit
+	 * timeout elapses, then throws {@link TaskRejectedException}. Tasks handed
+	 * off by the service itself, like retries and batches, are rejected
+	 * without blocking.
+	 */
+	BLOCK,
+	/**
+	 * Throws {@link TaskRejectedException} immediately.
+	 */
+	REJECT,
+	/**
+	 * Runs the task in the submitting thread. Tasks handed off by the service
+	 * itself, like retries and batches, are rejected instead of being run in
+	 * its scheduler or worker threads.
+	 */
+	CALLER_RUNS,
+	/**
+	 * Fails the oldest queued task with {@link TaskRejectedException} and
+	 * queues the submitted one.
+	 */
+	DISCARD_OLDEST;
+}
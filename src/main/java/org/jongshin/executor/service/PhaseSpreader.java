@@ -0,0 +1,38 @@
+package org.jongshin.executor.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spreads the runs of periodic schedules sharing a period across the period.
+ * The k-th schedule of a period is shifted by the fractional part of
+ * {@code k * 0.618...} of the period, so every new schedule lands in the
+ * largest gap left by the previous ones, however many there are.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+class PhaseSpreader {
+
+	private static final double GOLDEN_RATIO_CONJUGATE = 0.6180339887498949;
+
+	private final Map<Long, AtomicLong> schedulesByPeriod;
+
+	PhaseSpreader() {
+		schedulesByPeriod = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Returns the shift of the next schedule with the specified period.
+	 *
+	 * @param periodNanos
+	 *            the period of the schedule
+	 * @return the shift in range [0, periodNanos) in nanoseconds
+	 */
+	long nextOffsetNanos(long periodNanos) {
+		long k = schedulesByPeriod.computeIfAbsent(periodNanos, period -> new AtomicLong()).getAndIncrement();
+		double phase = (k * GOLDEN_RATIO_CONJUGATE) % 1;
+		return (long) (phase * periodNanos);
+	}
+}
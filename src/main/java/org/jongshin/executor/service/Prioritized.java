@@ -0,0 +1,15 @@
+package org.jongshin.executor.service;
+
+import org.jongshin.executor.task.TaskPriority;
+
+/**
+ * Implemented by the actions, which carry the priority of their task into an
+ * executor's queue.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+interface Prioritized {
+
+	TaskPriority getPriority();
+}
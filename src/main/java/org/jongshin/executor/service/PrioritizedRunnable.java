@@ -0,0 +1,34 @@
+package org.jongshin.executor.service;
+
+import org.jongshin.executor.task.TaskPriority;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The action, which carries the priority of its task to the scheduler.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+class PrioritizedRunnable implements Runnable, Prioritized {
+
+	private final Runnable runnable;
+	private final TaskPriority priority;
+
+	PrioritizedRunnable(Runnable runnable, TaskPriority priority) {
+		Preconditions.checkNotNull(runnable);
+		Preconditions.checkNotNull(priority);
+		this.runnable = runnable;
+		this.priority = priority;
+	}
+
+	@Override
+	public void run() {
+		runnable.run();
+	}
+
+	@Override
+	public TaskPriority getPriority() {
+		return priority;
+	}
+}
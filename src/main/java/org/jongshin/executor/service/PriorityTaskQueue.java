@@ -0,0 +1,342 @@
+package org.jongshin.executor.service;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jongshin.executor.task.TaskPriority;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The bounded queue of an executor, which orders actions by their
+ * {@link TaskPriority} and, within one priority, by arrival. Actions without
+ * priority are treated as {@link TaskPriority#NORMAL}.
+ * <p>
+ * Waiting actions age: every action gets a virtual deadline, which is its
+ * arrival time delayed by {@code agingNanos} per priority level below
+ * {@link TaskPriority#HIGH}, and the action with the earliest deadline is
+ * taken first. So an action of lower priority overtakes the ones of higher
+ * priority, which arrived {@code agingNanos} per level later than it, and it
+ * can't starve.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+class PriorityTaskQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+	private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+	private final int capacity;
+	private final long agingNanos;
+	private final ArrayDeque<Entry>[] levels;
+	private final ReentrantLock lock;
+	private final Condition notEmpty;
+	private final Condition notFull;
+	private int count;
+
+	/**
+	 * @param capacity
+	 *            the maximum number of waiting actions
+	 * @param agingNanos
+	 *            the waiting time, which raises an action by one priority
+	 *            level
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if
+	 *             <li>{@code capacity} <= 0</li>
+	 *             <li>{@code agingNanos} <= 0</li>
+	 */
+	@SuppressWarnings("unchecked")
+	PriorityTaskQueue(int capacity, long agingNanos) {
+		Preconditions.checkArgument(capacity > 0, "Illegal capacity=%s", capacity);
+		Preconditions.checkArgument(agingNanos > 0, "Illegal agingNanos=%s", agingNanos);
+		this.capacity = capacity;
+		this.agingNanos = agingNanos;
+		levels = (ArrayDeque<Entry>[]) new ArrayDeque<?>[PRIORITIES.length];
+		for (int i = 0; i < levels.length; i++) {
+			levels[i] = new ArrayDeque<>();
+		}
+		lock = new ReentrantLock();
+		notEmpty = lock.newCondition();
+		notFull = lock.newCondition();
+	}
+
+	static TaskPriority priorityOf(Object action) {
+		return action instanceof Prioritized ? ((Prioritized) action).getPriority() : TaskPriority.NORMAL;
+	}
+
+	private void enqueue(Runnable action) {
+		int level = priorityOf(action).ordinal();
+		levels[level].addLast(new Entry(action, System.nanoTime() + level * agingNanos));
+		count++;
+		notEmpty.signal();
+	}
+
+	/**
+	 * Returns the level, which head has the earliest deadline. Heads are the
+	 * earliest deadlines of their levels, since every level is in order of
+	 * arrival.
+	 */
+	private int headLevel() {
+		int headLevel = -1;
+		for (int i = 0; i < levels.length; i++) {
+			Entry head = levels[i].peekFirst();
+			if (head != null && (headLevel == -1 || head.deadline - levels[headLevel].peekFirst().deadline < 0)) {
+				headLevel = i;
+			}
+		}
+		return headLevel;
+	}
+
+	private Runnable dequeue(int level) {
+		Runnable action = levels[level].pollFirst().action;
+		count--;
+		notFull.signal();
+		return action;
+	}
+
+	@Override
+	public boolean offer(Runnable action) {
+		Preconditions.checkNotNull(action);
+		lock.lock();
+		try {
+			if (count == capacity) {
+				return false;
+			}
+			enqueue(action);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean offer(Runnable action, long timeout, TimeUnit unit) throws InterruptedException {
+		Preconditions.checkNotNull(action);
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (count == capacity) {
+				if (nanos <= 0) {
+					return false;
+				}
+				nanos = notFull.awaitNanos(nanos);
+			}
+			enqueue(action);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void put(Runnable action) throws InterruptedException {
+		Preconditions.checkNotNull(action);
+		lock.lockInterruptibly();
+		try {
+			while (count == capacity) {
+				notFull.await();
+			}
+			enqueue(action);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable take() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (count == 0) {
+				notEmpty.await();
+			}
+			return dequeue(headLevel());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable poll() {
+		lock.lock();
+		try {
+			return count == 0 ? null : dequeue(headLevel());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (count == 0) {
+				if (nanos <= 0) {
+					return null;
+				}
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return dequeue(headLevel());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Retrieves and removes the longest waiting action of the lowest priority,
+	 * which is the one to drop when the queue is overloaded.
+	 * 
+	 * @return the action or {@code null} if the queue is empty
+	 */
+	Runnable pollLowestPriority() {
+		lock.lock();
+		try {
+			for (int i = levels.length - 1; i >= 0; i--) {
+				if (!levels[i].isEmpty()) {
+					return dequeue(i);
+				}
+			}
+			return null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Runnable peek() {
+		lock.lock();
+		try {
+			return count == 0 ? null : levels[headLevel()].peekFirst().action;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (o == null) {
+			return false;
+		}
+		lock.lock();
+		try {
+			for (ArrayDeque<Entry> level : levels) {
+				for (Iterator<Entry> iterator = level.iterator(); iterator.hasNext();) {
+					if (o.equals(iterator.next().action)) {
+						iterator.remove();
+						count--;
+						notFull.signal();
+						return true;
+					}
+				}
+			}
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int size() {
+		lock.lock();
+		try {
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int remainingCapacity() {
+		lock.lock();
+		try {
+			return capacity - count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int drainTo(Collection<? super Runnable> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super Runnable> c, int maxElements) {
+		Preconditions.checkNotNull(c);
+		Preconditions.checkArgument(c != this, "Illegal collection");
+		lock.lock();
+		try {
+			int drained = 0;
+			while (drained < maxElements && count > 0) {
+				c.add(dequeue(headLevel()));
+				drained++;
+			}
+			return drained;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the iterator over the copy of waiting actions, which doesn't
+	 * follow the order of retrieval. Removal through the iterator removes the
+	 * action from the queue.
+	 */
+	@Override
+	public Iterator<Runnable> iterator() {
+		List<Runnable> actions = new ArrayList<>();
+		lock.lock();
+		try {
+			for (ArrayDeque<Entry> level : levels) {
+				level.forEach(entry -> {
+					actions.add(entry.action);
+				});
+			}
+		} finally {
+			lock.unlock();
+		}
+		return new Iterator<Runnable>() {
+			private final Iterator<Runnable> delegate = actions.iterator();
+			private Runnable last;
+
+			@Override
+			public boolean hasNext() {
+				return delegate.hasNext();
+			}
+
+			@Override
+			public Runnable next() {
+				last = delegate.next();
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				PriorityTaskQueue.this.remove(last);
+				last = null;
+			}
+		};
+	}
+
+	private static final class Entry {
+		private final Runnable action;
+		private final long deadline;
+
+		Entry(Runnable action, long deadline) {
+			this.action = action;
+			this.deadline = deadline;
+		}
+	}
+}
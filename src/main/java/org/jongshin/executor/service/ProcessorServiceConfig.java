@@ -0,0 +1,736 @@
+package org.jongshin.executor.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jongshin.executor.data.CompositeKey;
+import org.jongshin.executor.journal.IJournalCodec;
+import org.jongshin.executor.oberservers.OverflowPolicy;
+import org.jongshin.executor.task.AbstractTask;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Holds the tuning parameters of {@link ProcessorServiceImpl}. Instances are
+ * immutable and created through {@link #builder()}.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+public final class ProcessorServiceConfig {
+
+	private static final int DEFAULT_CORE_POOL_SIZE = 10;
+	private static final int DEFAULT_AGGREGATE_PARALLELISM = 5;
+	private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+	private static final long DEFAULT_SUBMIT_TIMEOUT_SECONDS = 30;
+	private static final int DEFAULT_NOTIFICATION_QUEUE_CAPACITY = 4096;
+	private static final long DEFAULT_TICK_DURATION_MILLIS = 10;
+	private static final long DEFAULT_PRIORITY_AGING_MILLIS = 1000;
+	private static final long DEFAULT_AGGREGATE_TIMEOUT_MINUTES = 5;
+
+	/**
+	 * The value of {@code maxWorkers}, which disables bounded execution mode,
+	 * or of a concurrency limit, which disables the limit.
+	 */
+	public static final int UNBOUNDED = 0;
+
+	/**
+	 * The value of a timeout, which disables the deadline.
+	 */
+	public static final long NO_TIMEOUT = 0;
+
+	private final int corePoolSize;
+	private final int aggregatePoolSize;
+	private final int aggregateParallelism;
+	private final int maxWorkers;
+	private final int queueCapacity;
+	private final OverloadPolicy overloadPolicy;
+	private final long submitTimeout;
+	private final TimeUnit submitTimeUnit;
+	private final int notifierThreads;
+	private final int notificationQueueCapacity;
+	private final OverflowPolicy notificationOverflowPolicy;
+	private final SchedulerType schedulerType;
+	private final long tickDuration;
+	private final TimeUnit tickTimeUnit;
+	private final ExecutionBackend executionBackend;
+	private final boolean metricsEnabled;
+	private final long priorityAging;
+	private final TimeUnit priorityAgingTimeUnit;
+	private final int majorKeyConcurrency;
+	private final Map<Object, Integer> majorKeyConcurrencies;
+	private final Map<Class<?>, Integer> taskClassConcurrencies;
+	private final int resultCacheSize;
+	private final Path journalFile;
+	private final IJournalCodec journalCodec;
+	private final boolean interruptOnCancel;
+	private final long taskTimeout;
+	private final TimeUnit taskTimeoutUnit;
+	private final long aggregateTimeout;
+	private final TimeUnit aggregateTimeoutUnit;
+	private final boolean phaseSpreading;
+
+	private ProcessorServiceConfig(Builder builder) {
+		this.corePoolSize = builder.corePoolSize;
+		this.aggregatePoolSize = builder.aggregatePoolSize;
+		this.aggregateParallelism = builder.aggregateParallelism;
+		this.maxWorkers = builder.maxWorkers;
+		this.queueCapacity = builder.queueCapacity;
+		this.overloadPolicy = builder.overloadPolicy;
+		this.submitTimeout = builder.submitTimeout;
+		this.submitTimeUnit = builder.submitTimeUnit;
+		this.notifierThreads = builder.notifierThreads;
+		this.notificationQueueCapacity = builder.notificationQueueCapacity;
+		this.notificationOverflowPolicy = builder.notificationOverflowPolicy;
+		this.schedulerType = builder.schedulerType;
+		this.tickDuration = builder.tickDuration;
+		this.tickTimeUnit = builder.tickTimeUnit;
+		this.executionBackend = builder.executionBackend;
+		this.metricsEnabled = builder.metricsEnabled;
+		this.priorityAging = builder.priorityAging;
+		this.priorityAgingTimeUnit = builder.priorityAgingTimeUnit;
+		this.majorKeyConcurrency = builder.majorKeyConcurrency;
+		this.majorKeyConcurrencies = Collections.unmodifiableMap(new HashMap<>(builder.majorKeyConcurrencies));
+		this.taskClassConcurrencies = Collections.unmodifiableMap(new HashMap<>(builder.taskClassConcurrencies));
+		this.resultCacheSize = builder.resultCacheSize;
+		this.journalFile = builder.journalFile;
+		this.journalCodec = builder.journalCodec;
+		this.interruptOnCancel = builder.interruptOnCancel;
+		this.taskTimeout = builder.taskTimeout;
+		this.taskTimeoutUnit = builder.taskTimeoutUnit;
+		this.aggregateTimeout = builder.aggregateTimeout;
+		this.aggregateTimeoutUnit = builder.aggregateTimeoutUnit;
+		this.phaseSpreading = builder.phaseSpreading;
+	}
+
+	/**
+	 * Returns the number of threads kept by the scheduler.
+	 */
+	public int getCorePoolSize() {
+		return corePoolSize;
+	}
+
+	/**
+	 * Returns the parallelism of the shared pool, which runs the minor tasks of
+	 * every aggregated task. A minor blocked on I/O doesn't count against it,
+	 * the pool compensates with an additional thread while the minor runs.
+	 */
+	public int getAggregatePoolSize() {
+		return aggregatePoolSize;
+	}
+
+	/**
+	 * Returns the maximum number of minor tasks of one aggregated task, which
+	 * may run at the same time.
+	 */
+	public int getAggregateParallelism() {
+		return aggregateParallelism;
+	}
+
+	/**
+	 * Returns the maximum number of threads, which run executed tasks, or
+	 * {@link #UNBOUNDED} if a new thread is created whenever no idle one
+	 * exists.
+	 */
+	public int getMaxWorkers() {
+		return maxWorkers;
+	}
+
+	public boolean isBounded() {
+		return maxWorkers != UNBOUNDED;
+	}
+
+	/**
+	 * Returns the number of executed tasks, which may wait for a worker in
+	 * bounded execution mode.
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * Returns the action taken in bounded execution mode, when the queue is
+	 * full.
+	 */
+	public OverloadPolicy getOverloadPolicy() {
+		return overloadPolicy;
+	}
+
+	/**
+	 * Returns how long {@link OverloadPolicy#BLOCK} waits for room in the
+	 * queue.
+	 */
+	public long getSubmitTimeout() {
+		return submitTimeout;
+	}
+
+	public TimeUnit getSubmitTimeUnit() {
+		return submitTimeUnit;
+	}
+
+	/**
+	 * Returns the number of threads, which notify observers, or {@code 0} if
+	 * observers are notified by the thread, which has run the task.
+	 */
+	public int getNotifierThreads() {
+		return notifierThreads;
+	}
+
+	public boolean isAsyncNotification() {
+		return notifierThreads != 0;
+	}
+
+	/**
+	 * Returns the number of notifications every notifier thread may queue.
+	 */
+	public int getNotificationQueueCapacity() {
+		return notificationQueueCapacity;
+	}
+
+	/**
+	 * Returns the action taken, when the queue of a notifier thread is full.
+	 */
+	public OverflowPolicy getNotificationOverflowPolicy() {
+		return notificationOverflowPolicy;
+	}
+
+	/**
+	 * Returns the implementation of the scheduler, which runs scheduled tasks.
+	 */
+	public SchedulerType getSchedulerType() {
+		return schedulerType;
+	}
+
+	/**
+	 * Returns the tick of {@link SchedulerType#TIMING_WHEEL}, which is its
+	 * precision.
+	 */
+	public long getTickDuration() {
+		return tickDuration;
+	}
+
+	public TimeUnit getTickTimeUnit() {
+		return tickTimeUnit;
+	}
+
+	/**
+	 * Returns the kind of threads, which run executed tasks and the minor tasks
+	 * of aggregated tasks.
+	 */
+	public ExecutionBackend getExecutionBackend() {
+		return executionBackend;
+	}
+
+	/**
+	 * Returns {@code true} if the service collects the metrics of tasks.
+	 */
+	public boolean isMetricsEnabled() {
+		return metricsEnabled;
+	}
+
+	/**
+	 * Returns the waiting time, which raises a queued task by one
+	 * {@link org.jongshin.executor.task.TaskPriority} level.
+	 */
+	public long getPriorityAging() {
+		return priorityAging;
+	}
+
+	public TimeUnit getPriorityAgingTimeUnit() {
+		return priorityAgingTimeUnit;
+	}
+
+	/**
+	 * Returns the maximum number of executed tasks with the specified major
+	 * key, which may run at the same time, or {@link #UNBOUNDED}.
+	 */
+	public int getMajorKeyConcurrency(Object major) {
+		return majorKeyConcurrencies.getOrDefault(major, majorKeyConcurrency);
+	}
+
+	/**
+	 * Returns {@code true} if executed tasks of some major key are limited.
+	 */
+	public boolean hasMajorKeyConcurrency() {
+		return majorKeyConcurrency != UNBOUNDED || !majorKeyConcurrencies.isEmpty();
+	}
+
+	/**
+	 * Returns the maximum numbers of executed tasks of a class, which may run
+	 * at the same time, by task's class.
+	 */
+	public Map<Class<?>, Integer> getTaskClassConcurrencies() {
+		return taskClassConcurrencies;
+	}
+
+	/**
+	 * Returns the maximum number of cached results of
+	 * {@link org.jongshin.executor.task.ICacheableTask}s, or {@code 0} if the
+	 * result cache is disabled.
+	 */
+	public int getResultCacheSize() {
+		return resultCacheSize;
+	}
+
+	public boolean isResultCacheEnabled() {
+		return resultCacheSize != 0;
+	}
+
+	/**
+	 * Returns the file of the schedule journal, or {@code null} if schedules
+	 * are not journaled.
+	 */
+	public Path getJournalFile() {
+		return journalFile;
+	}
+
+	public IJournalCodec getJournalCodec() {
+		return journalCodec;
+	}
+
+	public boolean isJournalEnabled() {
+		return journalFile != null;
+	}
+
+	/**
+	 * Returns {@code true} if the thread running a task is interrupted when
+	 * the task is canceled.
+	 */
+	public boolean isInterruptOnCancel() {
+		return interruptOnCancel;
+	}
+
+	/**
+	 * Returns the run time allowed to a task, which doesn't declare its own
+	 * timeout, or {@link #NO_TIMEOUT}.
+	 */
+	public long getTaskTimeout() {
+		return taskTimeout;
+	}
+
+	public TimeUnit getTaskTimeoutUnit() {
+		return taskTimeoutUnit;
+	}
+
+	/**
+	 * Returns the run time allowed to an aggregated task, which doesn't
+	 * declare its own timeout, or {@link #NO_TIMEOUT}.
+	 */
+	public long getAggregateTimeout() {
+		return aggregateTimeout;
+	}
+
+	public TimeUnit getAggregateTimeoutUnit() {
+		return aggregateTimeoutUnit;
+	}
+
+	/**
+	 * Returns {@code true} if the first runs of periodic schedules sharing a
+	 * period are spread across the period.
+	 */
+	public boolean isPhaseSpreading() {
+		return phaseSpreading;
+	}
+
+	public static ProcessorServiceConfig defaults() {
+		return builder().build();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public String toString() {
+		return "ProcessorServiceConfig [corePoolSize=" + corePoolSize + ", aggregatePoolSize=" + aggregatePoolSize
+				+ ", aggregateParallelism=" + aggregateParallelism + ", maxWorkers=" + maxWorkers + ", queueCapacity="
+				+ queueCapacity + ", overloadPolicy=" + overloadPolicy + ", submitTimeout=" + submitTimeout
+				+ ", submitTimeUnit=" + submitTimeUnit + ", notifierThreads=" + notifierThreads
+				+ ", notificationQueueCapacity=" + notificationQueueCapacity + ", notificationOverflowPolicy="
+				+ notificationOverflowPolicy + ", schedulerType=" + schedulerType + ", tickDuration=" + tickDuration
+				+ ", tickTimeUnit=" + tickTimeUnit + ", executionBackend=" + executionBackend
+				+ ", metricsEnabled=" + metricsEnabled + ", priorityAging=" + priorityAging
+				+ ", priorityAgingTimeUnit=" + priorityAgingTimeUnit + ", majorKeyConcurrency=" + majorKeyConcurrency
+				+ ", majorKeyConcurrencies=" + majorKeyConcurrencies + ", taskClassConcurrencies="
+				+ taskClassConcurrencies + ", resultCacheSize=" + resultCacheSize + ", journalFile=" + journalFile
+				+ ", journalCodec=" + journalCodec + ", interruptOnCancel=" + interruptOnCancel + ", taskTimeout="
+				+ taskTimeout + ", taskTimeoutUnit=" + taskTimeoutUnit + ", aggregateTimeout=" + aggregateTimeout
+				+ ", aggregateTimeoutUnit=" + aggregateTimeoutUnit + ", phaseSpreading=" + phaseSpreading + "]";
+	}
+
+	/**
+	 * Builder of {@link ProcessorServiceConfig}.
+	 */
+	public static final class Builder {
+		private int corePoolSize = DEFAULT_CORE_POOL_SIZE;
+		// minors block on I/O, the pool mustn't run fewer of them than one aggregate may
+		private int aggregatePoolSize = Math.max(Runtime.getRuntime().availableProcessors(),
+				DEFAULT_AGGREGATE_PARALLELISM);
+		private int aggregateParallelism = DEFAULT_AGGREGATE_PARALLELISM;
+		private int maxWorkers = UNBOUNDED;
+		private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+		private OverloadPolicy overloadPolicy = OverloadPolicy.BLOCK;
+		private long submitTimeout = DEFAULT_SUBMIT_TIMEOUT_SECONDS;
+		private TimeUnit submitTimeUnit = TimeUnit.SECONDS;
+		private int notifierThreads;
+		private int notificationQueueCapacity = DEFAULT_NOTIFICATION_QUEUE_CAPACITY;
+		private OverflowPolicy notificationOverflowPolicy = OverflowPolicy.BLOCK;
+		private SchedulerType schedulerType = SchedulerType.SCHEDULED_THREAD_POOL;
+		private long tickDuration = DEFAULT_TICK_DURATION_MILLIS;
+		private TimeUnit tickTimeUnit = TimeUnit.MILLISECONDS;
+		private ExecutionBackend executionBackend = ExecutionBackend.PLATFORM_THREADS;
+		private boolean metricsEnabled;
+		private long priorityAging = DEFAULT_PRIORITY_AGING_MILLIS;
+		private TimeUnit priorityAgingTimeUnit = TimeUnit.MILLISECONDS;
+		private int majorKeyConcurrency = UNBOUNDED;
+		private final Map<Object, Integer> majorKeyConcurrencies = new HashMap<>();
+		private final Map<Class<?>, Integer> taskClassConcurrencies = new HashMap<>();
+		private int resultCacheSize;
+		private Path journalFile;
+		private IJournalCodec journalCodec;
+		private boolean interruptOnCancel;
+		private long taskTimeout = NO_TIMEOUT;
+		private TimeUnit taskTimeoutUnit = TimeUnit.MILLISECONDS;
+		private long aggregateTimeout = DEFAULT_AGGREGATE_TIMEOUT_MINUTES;
+		private TimeUnit aggregateTimeoutUnit = TimeUnit.MINUTES;
+		private boolean phaseSpreading;
+
+		private Builder() {
+		}
+
+		/**
+		 * @throws IllegalArgumentException
+		 *             if {@code corePoolSize} <= 0
+		 */
+		public Builder corePoolSize(int corePoolSize) {
+			Preconditions.checkArgument(corePoolSize > 0, "Illegal corePoolSize=%s", corePoolSize);
+			this.corePoolSize = corePoolSize;
+			return this;
+		}
+
+		/**
+		 * @throws IllegalArgumentException
+		 *             if {@code aggregatePoolSize} <= 0
+		 */
+		public Builder aggregatePoolSize(int aggregatePoolSize) {
+			Preconditions.checkArgument(aggregatePoolSize > 0, "Illegal aggregatePoolSize=%s", aggregatePoolSize);
+			this.aggregatePoolSize = aggregatePoolSize;
+			return this;
+		}
+
+		/**
+		 * @throws IllegalArgumentException
+		 *             if {@code aggregateParallelism} <= 0
+		 */
+		public Builder aggregateParallelism(int aggregateParallelism) {
+			Preconditions.checkArgument(aggregateParallelism > 0, "Illegal aggregateParallelism=%s",
+					aggregateParallelism);
+			this.aggregateParallelism = aggregateParallelism;
+			return this;
+		}
+
+		/**
+		 * Enables bounded execution mode with the specified number of workers.
+		 * 
+		 * @throws IllegalArgumentException
+		 *             if {@code maxWorkers} < 0
+		 */
+		public Builder maxWorkers(int maxWorkers) {
+			Preconditions.checkArgument(maxWorkers >= 0, "Illegal maxWorkers=%s", maxWorkers);
+			this.maxWorkers = maxWorkers;
+			return this;
+		}
+
+		/**
+		 * @throws IllegalArgumentException
+		 *             if {@code queueCapacity} <= 0
+		 */
+		public Builder queueCapacity(int queueCapacity) {
+			Preconditions.checkArgument(queueCapacity > 0, "Illegal queueCapacity=%s", queueCapacity);
+			this.queueCapacity = queueCapacity;
+			return this;
+		}
+
+		/**
+		 * @throws NullPointerException
+		 *             if {@code overloadPolicy} is {@code null}
+		 */
+		public Builder overloadPolicy(OverloadPolicy overloadPolicy) {
+			Preconditions.checkNotNull(overloadPolicy, "overloadPolicy is null");
+			this.overloadPolicy = overloadPolicy;
+			return this;
+		}
+
+		/**
+		 * @throws IllegalArgumentException
+		 *             if {@code submitTimeout} < 0
+		 * @throws NullPointerException
+		 *             if {@code timeUnit} is {@code null}
+		 */
+		public Builder submitTimeout(long submitTimeout, TimeUnit timeUnit) {
+			Preconditions.checkArgument(submitTimeout >= 0, "Illegal submitTimeout=%s", submitTimeout);
+			Preconditions.checkNotNull(timeUnit, "timeUnit is null");
+			this.submitTimeout = submitTimeout;
+			this.submitTimeUnit = timeUnit;
+			return this;
+		}
+
+		/**
+		 * Enables asynchronous notification with the specified number of
+		 * notifier threads.
+		 * 
+		 * @throws IllegalArgumentException
+		 *             if {@code notifierThreads} < 0
+		 */
+		public Builder notifierThreads(int notifierThreads) {
+			Preconditions.checkArgument(notifierThreads >= 0, "Illegal notifierThreads=%s", notifierThreads);
+			this.notifierThreads = notifierThreads;
+			return this;
+		}
+
+		/**
+		 * @throws IllegalArgumentException
+		 *             if {@code notificationQueueCapacity} <= 0
+		 */
+		public Builder notificationQueueCapacity(int notificationQueueCapacity) {
+			Preconditions.checkArgument(notificationQueueCapacity > 0, "Illegal notificationQueueCapacity=%s",
+					notificationQueueCapacity);
+			this.notificationQueueCapacity = notificationQueueCapacity;
+			return this;
+		}
+
+		/**
+		 * @throws NullPointerException
+		 *             if {@code notificationOverflowPolicy} is {@code null}
+		 */
+		public Builder notificationOverflowPolicy(OverflowPolicy notificationOverflowPolicy) {
+			Preconditions.checkNotNull(notificationOverflowPolicy, "notificationOverflowPolicy is null");
+			this.notificationOverflowPolicy = notificationOverflowPolicy;
+			return this;
+		}
+
+		/**
+		 * @throws NullPointerException
+		 *             if {@code schedulerType} is {@code null}
+		 */
+		public Builder schedulerType(SchedulerType schedulerType) {
+			Preconditions.checkNotNull(schedulerType, "schedulerType is null");
+			this.schedulerType = schedulerType;
+			return this;
+		}
+
+		/**
+		 * @throws IllegalArgumentException
+		 *             if {@code tickDuration} <= 0
+		 * @throws NullPointerException
+		 *             if {@code timeUnit} is {@code null}
+		 */
+		public Builder tickDuration(long tickDuration, TimeUnit timeUnit) {
+			Preconditions.checkArgument(tickDuration > 0, "Illegal tickDuration=%s", tickDuration);
+			Preconditions.checkNotNull(timeUnit, "timeUnit is null");
+			this.tickDuration = tickDuration;
+			this.tickTimeUnit = timeUnit;
+			return this;
+		}
+
+		/**
+		 * Selects the kind of threads, which run tasks. With
+		 * {@link ExecutionBackend#VIRTUAL_THREADS} every task gets its own
+		 * virtual thread unless {@link #maxWorkers(int)} bounds them, and
+		 * {@link #aggregatePoolSize(int)} is ignored.
+		 * 
+		 * @throws NullPointerException
+		 *             if {@code executionBackend} is {@code null}
+		 */
+		public Builder executionBackend(ExecutionBackend executionBackend) {
+			Preconditions.checkNotNull(executionBackend, "executionBackend is null");
+			this.executionBackend = executionBackend;
+			return this;
+		}
+
+		/**
+		 * Enables collection of task counters, latency histograms and gauges,
+		 * which are available through {@link ProcessorServiceImpl#getMetrics()}.
+		 */
+		public Builder metricsEnabled(boolean metricsEnabled) {
+			this.metricsEnabled = metricsEnabled;
+			return this;
+		}
+
+		/**
+		 * Sets the waiting time, which raises a queued task by one priority
+		 * level, so tasks of low priority can't starve. Priorities order the
+		 * tasks waiting in bounded execution mode and the due runs of
+		 * {@link SchedulerType#TIMING_WHEEL}.
+		 * 
+		 * @throws IllegalArgumentException
+		 *             if {@code priorityAging} <= 0
+		 * @throws NullPointerException
+		 *             if {@code timeUnit} is {@code null}
+		 */
+		public Builder priorityAging(long priorityAging, TimeUnit timeUnit) {
+			Preconditions.checkArgument(priorityAging > 0, "Illegal priorityAging=%s", priorityAging);
+			Preconditions.checkNotNull(timeUnit, "timeUnit is null");
+			this.priorityAging = priorityAging;
+			this.priorityAgingTimeUnit = timeUnit;
+			return this;
+		}
+
+		/**
+		 * Limits the number of executed tasks with a {@link CompositeKey} of
+		 * the same major, which may run at the same time. The limit applies
+		 * to every major without its own limit. Tasks over the limit wait
+		 * without holding a thread.
+		 * 
+		 * @throws IllegalArgumentException
+		 *             if {@code majorKeyConcurrency} < 0
+		 */
+		public Builder majorKeyConcurrency(int majorKeyConcurrency) {
+			Preconditions.checkArgument(majorKeyConcurrency >= 0, "Illegal majorKeyConcurrency=%s",
+					majorKeyConcurrency);
+			this.majorKeyConcurrency = majorKeyConcurrency;
+			return this;
+		}
+
+		/**
+		 * Limits the number of executed tasks with a {@link CompositeKey} of
+		 * the specified major, which may run at the same time.
+		 * 
+		 * @throws NullPointerException
+		 *             if {@code major} is {@code null}
+		 * @throws IllegalArgumentException
+		 *             if {@code majorKeyConcurrency} < 0
+		 */
+		public Builder majorKeyConcurrency(Object major, int majorKeyConcurrency) {
+			Preconditions.checkNotNull(major, "major is null");
+			Preconditions.checkArgument(majorKeyConcurrency >= 0, "Illegal majorKeyConcurrency=%s",
+					majorKeyConcurrency);
+			majorKeyConcurrencies.put(major, majorKeyConcurrency);
+			return this;
+		}
+
+		/**
+		 * Limits the number of executed tasks of exactly the specified class,
+		 * which may run at the same time. Tasks over the limit wait without
+		 * holding a thread.
+		 * 
+		 * @throws NullPointerException
+		 *             if {@code taskClass} is {@code null}
+		 * @throws IllegalArgumentException
+		 *             if {@code taskClassConcurrency} <= 0
+		 */
+		public Builder taskClassConcurrency(Class<? extends AbstractTask<?, ?>> taskClass, int taskClassConcurrency) {
+			Preconditions.checkNotNull(taskClass, "taskClass is null");
+			Preconditions.checkArgument(taskClassConcurrency > 0, "Illegal taskClassConcurrency=%s",
+					taskClassConcurrency);
+			taskClassConcurrencies.put(taskClass, taskClassConcurrency);
+			return this;
+		}
+
+		/**
+		 * Enables the result cache of the specified size. An executed
+		 * {@link org.jongshin.executor.task.ICacheableTask} with the key of a
+		 * cached result completes with that result without being run, the
+		 * least recently used results are evicted first.
+		 * 
+		 * @throws IllegalArgumentException
+		 *             if {@code resultCacheSize} < 0
+		 */
+		public Builder resultCacheSize(int resultCacheSize) {
+			Preconditions.checkArgument(resultCacheSize >= 0, "Illegal resultCacheSize=%s", resultCacheSize);
+			this.resultCacheSize = resultCacheSize;
+			return this;
+		}
+
+		/**
+		 * Enables the journal of schedules. Scheduled and canceled tasks are
+		 * recorded to the specified file, and the schedules recorded by a
+		 * previous instance are restored, when the service is created.
+		 * 
+		 * @param journalFile
+		 *            the file of the journal
+		 * @param journalCodec
+		 *            the codec, which converts tasks to bytes and back
+		 * 
+		 * @throws NullPointerException
+		 *             if
+		 *             <li>{@code journalFile} is {@code null}</li>
+		 *             <li>{@code journalCodec} is {@code null}</li>
+		 */
+		public Builder journal(Path journalFile, IJournalCodec journalCodec) {
+			Preconditions.checkNotNull(journalFile, "journalFile is null");
+			Preconditions.checkNotNull(journalCodec, "journalCodec is null");
+			this.journalFile = journalFile;
+			this.journalCodec = journalCodec;
+			return this;
+		}
+
+		/**
+		 * Makes cancellation interrupt the thread running the task, in
+		 * addition to canceling its
+		 * {@link org.jongshin.executor.data.CancellationToken}. Tasks blocked
+		 * in interruptible calls stop without polling the token.
+		 */
+		public Builder interruptOnCancel(boolean interruptOnCancel) {
+			this.interruptOnCancel = interruptOnCancel;
+			return this;
+		}
+
+		/**
+		 * Sets the run time allowed to a task, which doesn't declare its own
+		 * {@link AbstractTask#getTimeoutMillis()}. A task exceeding it is
+		 * completed with {@link org.jongshin.executor.data.TaskStatus#TIMED_OUT}
+		 * and its cancellation token is canceled. Deadlines are kept by the
+		 * scheduler, they don't hold a thread.
+		 * 
+		 * @throws IllegalArgumentException
+		 *             if {@code taskTimeout} < 0
+		 * @throws NullPointerException
+		 *             if {@code timeUnit} is {@code null}
+		 */
+		public Builder taskTimeout(long taskTimeout, TimeUnit timeUnit) {
+			Preconditions.checkArgument(taskTimeout >= 0, "Illegal taskTimeout=%s", taskTimeout);
+			Preconditions.checkNotNull(timeUnit, "timeUnit is null");
+			this.taskTimeout = taskTimeout;
+			this.taskTimeoutUnit = timeUnit;
+			return this;
+		}
+
+		/**
+		 * Sets the run time allowed to an aggregated task, which includes the
+		 * runs of its minor tasks. Once it is exceeded, the running minors are
+		 * canceled and the rest are skipped. 5 minutes by default.
+		 * 
+		 * @throws IllegalArgumentException
+		 *             if {@code aggregateTimeout} < 0
+		 * @throws NullPointerException
+		 *             if {@code timeUnit} is {@code null}
+		 */
+		public Builder aggregateTimeout(long aggregateTimeout, TimeUnit timeUnit) {
+			Preconditions.checkArgument(aggregateTimeout >= 0, "Illegal aggregateTimeout=%s", aggregateTimeout);
+			Preconditions.checkNotNull(timeUnit, "timeUnit is null");
+			this.aggregateTimeout = aggregateTimeout;
+			this.aggregateTimeoutUnit = timeUnit;
+			return this;
+		}
+
+		/**
+		 * Shifts the first run of every periodic schedule by a part of its
+		 * period, so that schedules registered together with the same period
+		 * don't fire at the same instant. The shift of a schedule depends on
+		 * the number of schedules with its period registered before it, and
+		 * is never longer than the period.
+		 */
+		public Builder phaseSpreading(boolean phaseSpreading) {
+			this.phaseSpreading = phaseSpreading;
+			return this;
+		}
+
+		public ProcessorServiceConfig build() {
+			return new ProcessorServiceConfig(this);
+		}
+	}
+}
@@ -1,30 +1,59 @@
 package org.jongshin.executor.service;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
+import org.apache.log4j.Logger;
+import org.jongshin.executor.data.CancellationToken;
 import org.jongshin.executor.data.CompositeKey;
+import org.jongshin.executor.data.CronExpression;
 import org.jongshin.executor.data.Execution;
+import org.jongshin.executor.data.GraphExecution;
+import org.jongshin.executor.data.MisfirePolicy;
 import org.jongshin.executor.data.ProcessorException;
 import org.jongshin.executor.data.ScheduledExecution;
+import org.jongshin.executor.data.TaskCanceledException;
+import org.jongshin.executor.data.TaskRejectedException;
 import org.jongshin.executor.data.TaskResult;
 import org.jongshin.executor.data.TaskStatus;
+import org.jongshin.executor.data.TaskTimeoutException;
+import org.jongshin.executor.journal.IJournalCodec;
+import org.jongshin.executor.journal.ScheduleJournal;
+import org.jongshin.executor.metrics.ProcessorMetrics;
 import org.jongshin.executor.oberservers.IObserver;
 import org.jongshin.executor.oberservers.IObserverManager;
+import org.jongshin.executor.oberservers.IStreamObserver;
 import org.jongshin.executor.oberservers.ObserverManagerImpl;
 import org.jongshin.executor.task.AbstractTask;
 import org.jongshin.executor.task.AggregatedTask;
+import org.jongshin.executor.task.BatchableTask;
+import org.jongshin.executor.task.ICacheableTask;
+import org.jongshin.executor.task.RetryPolicy;
 import org.jongshin.executor.task.SingleTask;
+import org.jongshin.executor.task.StreamingTask;
+import org.jongshin.executor.task.TaskPriority;
 
 import com.google.common.base.Preconditions;
 
@@ -36,191 +65,875 @@ import com.google.common.base.Preconditions;
  */
 public class ProcessorServiceImpl implements IProcessorService {
 
-	private static final int DEFAULT_CORE_POOL_SIZE = 10;
-	private static final int DEFAULT_PARALLEL_THREADS = 5;
-	private static final int DEFAULT_KEEP_ALIVE_TIME_MINUTES = 5;
+	private static final Logger LOGGER = Logger.getLogger(ProcessorServiceImpl.class);
 
+	private static final int DEFAULT_WORKER_KEEP_ALIVE_TIME_SECONDS = 60;
+	private static final String EXECUTOR_THREAD_PREFIX = "processor-executor-";
+	private static final String AGGREGATE_THREAD_PREFIX = "processor-aggregate-";
+
+	private final ProcessorServiceConfig config;
 	private ExecutorService executorService;
+	private OverloadHandler overloadHandler;
+	private Bulkheads bulkheads;
+	private ResultCache resultCache;
+	private TaskBatcher taskBatcher;
+	private ScheduleJournal journal;
+	private ExecutorService aggregateExecutorService;
 	private ScheduledExecutorService scheduledExecutorService;
+	private PhaseSpreader phaseSpreader;
 	private IObserverManager observerManager;
-	private Lock lock;
+	private ProcessorMetrics metrics;
 
-	@SuppressWarnings("rawtypes")
-	private Map<AbstractTask, Execution> executedTasks;
-	@SuppressWarnings("rawtypes")
-	private Map<AbstractTask, ScheduledExecution> scheduledTasks;
+	private TaskRegistry<Execution> executedTasks;
+	private TaskRegistry<ScheduledExecution> scheduledTasks;
 
 	public ProcessorServiceImpl() {
-		executorService = Executors.newCachedThreadPool();
-		scheduledExecutorService = Executors.newScheduledThreadPool(DEFAULT_CORE_POOL_SIZE);
-		executedTasks = new ConcurrentHashMap<>();
-		scheduledTasks = new ConcurrentHashMap<>();
-		observerManager = new ObserverManagerImpl();
-		lock = new ReentrantLock();
+		this(ProcessorServiceConfig.defaults());
+	}
+
+	/**
+	 * @param config
+	 *            the tuning parameters of the service
+	 * 
+	 * @throws NullPointerException
+	 *             if {@code config} is {@code null}
+	 * @throws ProcessorException
+	 *             if {@link ExecutionBackend#VIRTUAL_THREADS} is selected, but
+	 *             the runtime doesn't support virtual threads
+	 */
+	public ProcessorServiceImpl(ProcessorServiceConfig config) {
+		Preconditions.checkNotNull(config, "config is null");
+		this.config = config;
+		executorService = newExecutorService(config);
+		bulkheads = new Bulkheads(config, executorService);
+		if (config.isResultCacheEnabled()) {
+			resultCache = new ResultCache(config.getResultCacheSize());
+		}
+		aggregateExecutorService = newAggregateExecutorService(config);
+		scheduledExecutorService = newScheduledExecutorService(config);
+		taskBatcher = new TaskBatcher(scheduledExecutorService, this::dispatchBatch);
+		if (resultCache != null) {
+			// expired results are swept off the submit path
+			scheduledExecutorService.scheduleWithFixedDelay(() -> {
+				resultCache.purge();
+			}, ResultCache.PURGE_INTERVAL_NANOS, ResultCache.PURGE_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+		}
+		if (config.isPhaseSpreading()) {
+			phaseSpreader = new PhaseSpreader();
+		}
+		executedTasks = new TaskRegistry<>();
+		scheduledTasks = new TaskRegistry<>();
+		if (config.isAsyncNotification()) {
+			observerManager = new ObserverManagerImpl(config.getNotifierThreads(),
+					config.getNotificationQueueCapacity(), config.getNotificationOverflowPolicy());
+		} else {
+			observerManager = new ObserverManagerImpl();
+		}
+		if (config.isMetricsEnabled()) {
+			metrics = newMetrics();
+		}
+		if (config.isJournalEnabled()) {
+			journal = new ScheduleJournal(config.getJournalFile());
+			restoreSchedules();
+		}
 	}
 
-	private <K, V> AggregatedTask<K, V> getAppropriateAggregatedTask(CompositeKey<K> key) {
+	/**
+	 * Schedules the tasks of the live schedules kept by the journal. A
+	 * periodic task resumes at its next run, which is not in the past, with
+	 * its fixed-rate or fixed-delay mode, an overdue one-shot task runs
+	 * immediately.
+	 */
+	private void restoreSchedules() {
+		IJournalCodec codec = config.getJournalCodec();
+		long now = System.currentTimeMillis();
+		int restored = 0;
+		for (ScheduleJournal.Schedule schedule : journal.getLiveSchedules()) {
+			try {
+				SingleTask<?, ?> task = codec.decode(schedule.getTaskData());
+				long initialDelayNanos = schedule.getNextDelayNanos(now);
+				long periodNanos = schedule.getPeriodNanos();
+				MisfirePolicy misfirePolicy = schedule.getMisfirePolicy();
+				registerAndSchedule(task,
+						() -> new ScheduledExecution(initialDelayNanos, periodNanos, TimeUnit.NANOSECONDS,
+								misfirePolicy),
+						codec.getObservers(task));
+				restored++;
+			} catch (RuntimeException e) {
+				LOGGER.error(String.format("Schedule can't be restored from journal [file=%s]",
+						config.getJournalFile()), e);
+			}
+		}
+		LOGGER.info(String.format("Schedules have been restored from journal [file=%s, restored=%d]",
+				config.getJournalFile(), restored));
+	}
+
+	private ProcessorMetrics newMetrics() {
+		ProcessorMetrics processorMetrics = new ProcessorMetrics();
+		processorMetrics.registerGauge("executor.queueDepth", this::getQueueDepth);
+		processorMetrics.registerGauge("executor.rejected", this::getRejectedCount);
+		if (executorService instanceof ThreadPoolExecutor) {
+			ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) executorService;
+			processorMetrics.registerGauge("executor.activeThreads", threadPoolExecutor::getActiveCount);
+			processorMetrics.registerGauge("executor.poolSize", threadPoolExecutor::getPoolSize);
+		}
+		if (aggregateExecutorService instanceof ForkJoinPool) {
+			ForkJoinPool forkJoinPool = (ForkJoinPool) aggregateExecutorService;
+			processorMetrics.registerGauge("aggregate.activeThreads", forkJoinPool::getActiveThreadCount);
+			processorMetrics.registerGauge("aggregate.queueDepth",
+					() -> forkJoinPool.getQueuedSubmissionCount() + forkJoinPool.getQueuedTaskCount());
+		}
+		if (scheduledExecutorService instanceof TimingWheelScheduler) {
+			processorMetrics.registerGauge("scheduler.scheduled",
+					((TimingWheelScheduler) scheduledExecutorService)::getScheduledCount);
+		} else if (scheduledExecutorService instanceof ScheduledThreadPoolExecutor) {
+			processorMetrics.registerGauge("scheduler.scheduled",
+					((ScheduledThreadPoolExecutor) scheduledExecutorService).getQueue()::size);
+		}
+		processorMetrics.registerGauge("bulkhead.waiting", bulkheads::getWaitingCount);
+		if (resultCache != null) {
+			processorMetrics.registerGauge("cache.size", resultCache::size);
+			processorMetrics.registerGauge("cache.hits", resultCache::getHitCount);
+			processorMetrics.registerGauge("cache.misses", resultCache::getMissCount);
+		}
+		processorMetrics.registerGauge("tasks.executed", executedTasks::size);
+		processorMetrics.registerGauge("tasks.scheduled", scheduledTasks::size);
+		if (observerManager instanceof ObserverManagerImpl) {
+			ObserverManagerImpl observerManagerImpl = (ObserverManagerImpl) observerManager;
+			processorMetrics.registerGauge("notification.queueDepth",
+					observerManagerImpl::getNotificationQueueDepth);
+			processorMetrics.registerGauge("notification.dropped", observerManagerImpl::getDroppedNotificationCount);
+		}
+		return processorMetrics;
+	}
+
+	private ExecutorService newExecutorService(ProcessorServiceConfig config) {
+		boolean virtual = config.getExecutionBackend() == ExecutionBackend.VIRTUAL_THREADS;
+		if (!config.isBounded()) {
+			return virtual ? VirtualThreads.newThreadPerTaskExecutor(EXECUTOR_THREAD_PREFIX)
+					: Executors.newCachedThreadPool();
+		}
+		overloadHandler = new OverloadHandler(config.getOverloadPolicy(), config.getSubmitTimeout(),
+				config.getSubmitTimeUnit());
+		ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(config.getMaxWorkers(), config.getMaxWorkers(),
+				DEFAULT_WORKER_KEEP_ALIVE_TIME_SECONDS, TimeUnit.SECONDS,
+				new PriorityTaskQueue(config.getQueueCapacity(),
+						config.getPriorityAgingTimeUnit().toNanos(config.getPriorityAging())),
+				virtual ? VirtualThreads.newThreadFactory(EXECUTOR_THREAD_PREFIX) : Executors.defaultThreadFactory(),
+				overloadHandler);
+		threadPoolExecutor.allowCoreThreadTimeOut(true);
+		return threadPoolExecutor;
+	}
+
+	private ExecutorService newAggregateExecutorService(ProcessorServiceConfig config) {
+		if (config.getExecutionBackend() == ExecutionBackend.VIRTUAL_THREADS) {
+			return VirtualThreads.newThreadPerTaskExecutor(AGGREGATE_THREAD_PREFIX);
+		}
+		return new ForkJoinPool(config.getAggregatePoolSize(), ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+				null, true);
+	}
+
+	private ScheduledExecutorService newScheduledExecutorService(ProcessorServiceConfig config) {
+		switch (config.getSchedulerType()) {
+		case TIMING_WHEEL:
+			return new TimingWheelScheduler(config.getTickDuration(), config.getTickTimeUnit(),
+					config.getCorePoolSize(), config.getPriorityAging(), config.getPriorityAgingTimeUnit());
+		case SCHEDULED_THREAD_POOL:
+		default:
+			ScheduledThreadPoolExecutor scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(
+					config.getCorePoolSize());
+			// deadlines are mostly canceled, they mustn't pile up in the queue
+			scheduledThreadPoolExecutor.setRemoveOnCancelPolicy(true);
+			scheduledThreadPoolExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+			return scheduledThreadPoolExecutor;
+		}
+	}
+
+	private <K, V> AggregatedTask<K, V> getAppropriateAggregatedTask(CompositeKey<K> key, TaskPriority priority) {
 		Preconditions.checkNotNull(key);
 		K major = key.getMajor();
-		AbstractTask<K, V> task = getTask(major);
+		// minors are added to the scheduled aggregate, the executed one is of no use
+		AbstractTask<K, V> task = scheduledTasks.getTask(major);
 		if (task instanceof AggregatedTask) {
 			return (AggregatedTask<K, V>) task;
 		}
-		return new AggregatedTask<K, V>(major);
-	}
-
-	@SuppressWarnings("unchecked")
-	private <K, V> AbstractTask<K, V> getTask(K key) {
-		Preconditions.checkNotNull(key);
-		return Stream.concat(executedTasks.keySet().stream(), scheduledTasks.keySet().stream()).filter(task -> {
-			return task.getKey().equals(key);
-		}).findFirst().orElse(null);
+		return new AggregatedTask<K, V>(major, config.getAggregateParallelism(), priority);
 	}
 
-	private <K, V> Execution newExecution(AbstractTask<K, V> task) {
+	private <K, V> Execution createExecution(AbstractTask<K, V> task) {
 		Preconditions.checkNotNull(task);
 		Execution execution = new Execution();
 		if (task.isCanceled()) {
 			execution.cancel();
 		}
-		executedTasks.put(task, execution);
+		if (metrics != null) {
+			execution.setSubmittedNanos(System.nanoTime());
+		}
 		return execution;
 	}
 
-	private <K, V> ScheduledExecution newScheduledExecution(AbstractTask<K, V> task, long initialDelay, long period,
-			TimeUnit timeUnit) {
+	private <K, V> ScheduledExecution createScheduledExecution(AbstractTask<K, V> task,
+			Supplier<ScheduledExecution> executionFactory) {
 		Preconditions.checkNotNull(task);
-		ScheduledExecution scheduledExecution = new ScheduledExecution(initialDelay, period, timeUnit);
+		ScheduledExecution scheduledExecution = executionFactory.get();
 		if (task.isCanceled()) {
 			scheduledExecution.cancel();
 		}
-		scheduledTasks.put(task, scheduledExecution);
 		return scheduledExecution;
 	}
 
+	/**
+	 * @throws IllegalArgumentException
+	 *             if no observer is provided
+	 */
+	private static void checkObservers(@SuppressWarnings("rawtypes") IObserver... observers) {
+		if (observers.length == 0) {
+			throw new IllegalArgumentException("At least 1 observer should be provided");
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if
+	 *             <li>{@code initialDelay} <= 0</li>
+	 *             <li>{@code period} < {@code minPeriod}</li>
+	 */
+	private static void checkDelays(long initialDelay, long period, long minPeriod) {
+		if (initialDelay <= 0) {
+			throw new IllegalArgumentException(String.format("Illegal initialDelay=%d", initialDelay));
+		}
+		if (period < minPeriod) {
+			throw new IllegalArgumentException(String.format("Illegal period=%d", period));
+		}
+	}
+
 	@Override
 	public <K, V> ScheduledExecution schedule(long initialDelay, TimeUnit timeUnit, SingleTask<K, V> task,
 			@SuppressWarnings("rawtypes") IObserver... observers) {
 		return schedule(initialDelay, 0, timeUnit, task, observers);
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public <K, V> ScheduledExecution schedule(long initialDelay, long period, TimeUnit timeUnit, SingleTask<K, V> task,
 			@SuppressWarnings("rawtypes") IObserver... observers) {
-		if (initialDelay <= 0) {
-			throw new IllegalArgumentException(String.format("Illegal initialDelay=%d", initialDelay));
+		checkDelays(initialDelay, period, 0);
+		return scheduleAndRecord(initialDelay, period, timeUnit, null, task, observers);
+	}
+
+	@Override
+	public <K, V> ScheduledExecution scheduleAtFixedRate(long initialDelay, long period, TimeUnit timeUnit,
+			MisfirePolicy misfirePolicy, SingleTask<K, V> task, @SuppressWarnings("rawtypes") IObserver... observers) {
+		checkDelays(initialDelay, period, 1);
+		Preconditions.checkNotNull(misfirePolicy);
+		return scheduleAndRecord(initialDelay, period, timeUnit, misfirePolicy, task, observers);
+	}
+
+	private <K, V> ScheduledExecution scheduleAndRecord(long initialDelay, long period, TimeUnit timeUnit,
+			MisfirePolicy misfirePolicy, SingleTask<K, V> task, @SuppressWarnings("rawtypes") IObserver... observers) {
+		Preconditions.checkNotNull(timeUnit);
+		Preconditions.checkNotNull(task);
+		checkObservers(observers);
+		return spreadAndRecord(initialDelay, period, timeUnit, misfirePolicy, task, observers);
+	}
+
+	private <K, V> ScheduledExecution spreadAndRecord(long initialDelay, long period, TimeUnit timeUnit,
+			MisfirePolicy misfirePolicy, SingleTask<K, V> task, @SuppressWarnings("rawtypes") IObserver... observers) {
+		if (phaseSpreader != null && period > 0) {
+			long periodNanos = timeUnit.toNanos(period);
+			long initialDelayNanos = timeUnit.toNanos(initialDelay) + phaseSpreader.nextOffsetNanos(periodNanos);
+			return registerAndRecord(initialDelayNanos, periodNanos, TimeUnit.NANOSECONDS, misfirePolicy, task,
+					observers);
 		}
-		if (period < 0) {
-			throw new IllegalArgumentException(String.format("Illegal period=%d", period));
+		return registerAndRecord(initialDelay, period, timeUnit, misfirePolicy, task, observers);
+	}
+
+	private <K, V> ScheduledExecution registerAndRecord(long initialDelay, long period, TimeUnit timeUnit,
+			MisfirePolicy misfirePolicy, SingleTask<K, V> task, @SuppressWarnings("rawtypes") IObserver... observers) {
+		if (journal == null) {
+			return registerAndSchedule(task, () -> new ScheduledExecution(initialDelay, period, timeUnit, misfirePolicy),
+					observers);
 		}
+		// recorded before the first run, which may finish and record the removal before this call returns
+		journal.recordSchedule(config.getJournalCodec().encode(task),
+				System.currentTimeMillis() + timeUnit.toMillis(initialDelay), timeUnit.toNanos(period), misfirePolicy);
+		try {
+			return registerAndSchedule(task, () -> new ScheduledExecution(initialDelay, period, timeUnit, misfirePolicy),
+					observers);
+		} catch (RuntimeException e) {
+			journalRemove(task);
+			throw e;
+		}
+	}
+
+	@Override
+	public <K, V> List<ScheduledExecution> scheduleAll(long initialDelay, long period, TimeUnit timeUnit,
+			Collection<? extends SingleTask<K, V>> tasks, @SuppressWarnings("rawtypes") IObserver... observers) {
+		checkDelays(initialDelay, period, 0);
 		Preconditions.checkNotNull(timeUnit);
+		Preconditions.checkNotNull(tasks, "tasks is null");
+		checkObservers(observers);
+		for (SingleTask<K, V> task : tasks) {
+			Preconditions.checkNotNull(task, "task is null");
+		}
+		List<ScheduledExecution> scheduledExecutions = new ArrayList<>(tasks.size());
+		for (SingleTask<K, V> task : tasks) {
+			scheduledExecutions.add(spreadAndRecord(initialDelay, period, timeUnit, null, task, observers));
+		}
+		return scheduledExecutions;
+	}
+
+	@Override
+	public <K, V> ScheduledExecution schedule(CronExpression cronExpression, SingleTask<K, V> task,
+			@SuppressWarnings("rawtypes") IObserver... observers) {
+		Preconditions.checkNotNull(cronExpression);
 		Preconditions.checkNotNull(task);
-		if (observers.length == 0) {
-			throw new IllegalArgumentException("At least 1 observer should be provided");
+		checkObservers(observers);
+		long now = System.currentTimeMillis();
+		long firstFireMillis = cronExpression.nextFireMillis(now);
+		if (firstFireMillis == CronExpression.NEVER) {
+			throw new IllegalArgumentException(String.format("Cron expression never fires [cronExpression=%s]",
+					cronExpression.getExpression()));
 		}
+		ScheduledExecution scheduledExecution = registerAndSchedule(task,
+				() -> new ScheduledExecution(firstFireMillis - now, TimeUnit.MILLISECONDS, cronExpression), observers);
+		// the journal doesn't keep cron schedules, a former schedule of the task mustn't be restored
+		journalRemove(task);
+		return scheduledExecution;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <K, V> ScheduledExecution registerAndSchedule(SingleTask<K, V> task,
+			Supplier<ScheduledExecution> executionFactory, @SuppressWarnings("rawtypes") IObserver... observers) {
 		if (task.getKey() instanceof CompositeKey) {
-			CompositeKey<K> compositeKey = (CompositeKey<K>) task.getKey();
-			AggregatedTask<K, V> aggregatedTask = getAppropriateAggregatedTask(compositeKey);
-			aggregatedTask.addTask(task);
-			observerManager.removeAll(task);
-			Arrays.stream(observers).forEach(observer -> {
-				observerManager.add(task, observer);
-			});
-			ScheduledExecution scheduledExecution = scheduledTasks.get(aggregatedTask);
-			if (scheduledExecution == null) {
-				lock.lock();
-				try {
-					scheduledExecution = scheduledTasks.get(aggregatedTask);
-					if (scheduledExecution == null) {
-						scheduledExecution = scheduleTask(initialDelay, period, timeUnit, aggregatedTask);
-					}
-				} finally {
-					lock.unlock();
-				}
-			}
-			return scheduledExecution;
+			return registerAndScheduleMinor(task, executionFactory, observers);
 		}
 		ScheduledExecution scheduledExecution = scheduledTasks.get(task);
 		if (scheduledExecution != null) {
 			scheduledExecution.cancel();
 			observerManager.removeAll(task);
 		}
-		Arrays.stream(observers).forEach(observer -> {
-			observerManager.add(task, observer);
-		});
-		return scheduleTask(initialDelay, period, timeUnit, task);
+		scheduledExecution = createScheduledExecution(task, executionFactory);
+		// registered before the observers are bound, the key may be taken by a task of another class
+		ScheduledExecution previous = scheduledTasks.put(task, scheduledExecution);
+		bindObservers(task, observers);
+		subscribe(task, observers);
+		if (previous != null) {
+			// a concurrent schedule of the same key has been replaced
+			previous.cancel();
+		}
+		return scheduleTask(task, scheduledExecution);
+	}
+
+	/**
+	 * Adds the task to the aggregated task of its major key. The first minor
+	 * of a major key registers and schedules the aggregated task, concurrent
+	 * callers losing the registration retry with the registered one.
+	 */
+	@SuppressWarnings("unchecked")
+	private <K, V> ScheduledExecution registerAndScheduleMinor(SingleTask<K, V> task,
+			Supplier<ScheduledExecution> executionFactory, @SuppressWarnings("rawtypes") IObserver... observers) {
+		CompositeKey<K> compositeKey = (CompositeKey<K>) task.getKey();
+		observerManager.removeAll(task);
+		bindObservers(task, observers);
+		subscribe(task, observers);
+		for (;;) {
+			AggregatedTask<K, V> aggregatedTask = getAppropriateAggregatedTask(compositeKey, task.getPriority());
+			ScheduledExecution scheduledExecution = scheduledTasks.getRegistered(aggregatedTask);
+			if (scheduledExecution != null) {
+				aggregatedTask.addTask(task);
+				return scheduledExecution;
+			}
+			scheduledExecution = createScheduledExecution(aggregatedTask, executionFactory);
+			if (scheduledTasks.putIfAbsent(aggregatedTask, scheduledExecution) == null) {
+				aggregatedTask.addTask(task);
+				return scheduleTask(aggregatedTask, scheduledExecution);
+			}
+		}
 	}
 
-	private <K, V> ScheduledExecution scheduleTask(long initialDelay, long period, TimeUnit timeUnit,
-			AbstractTask<K, V> task) {
-		ScheduledExecution scheduledExecution = newScheduledExecution(task, initialDelay, period, timeUnit);
+	private <K, V> ScheduledExecution scheduleTask(AbstractTask<K, V> task, ScheduledExecution scheduledExecution) {
+		long initialDelay = scheduledExecution.getInitialDelay();
+		long period = scheduledExecution.getPeriod();
+		TimeUnit timeUnit = scheduledExecution.getTimeUnit();
+		if (scheduledExecution.getCronExpression() != null) {
+			CronTrigger trigger = new CronTrigger(scheduledExecutorService, () -> {
+				process(task, scheduledExecution);
+			}, task.getPriority(), scheduledExecution.getCronExpression());
+			scheduledExecution.setFuture(trigger);
+			trigger.start();
+			return scheduledExecution;
+		}
+		if (scheduledExecution.isFixedRate()) {
+			FixedRateTrigger trigger = new FixedRateTrigger(scheduledExecutorService, () -> {
+				process(task, scheduledExecution);
+			}, task.getPriority(), timeUnit.toNanos(period), scheduledExecution.getMisfirePolicy());
+			// the execution holds the trigger before its first run may cancel it
+			scheduledExecution.setFuture(trigger);
+			trigger.start(timeUnit.toNanos(initialDelay));
+			return scheduledExecution;
+		}
 		ScheduledFuture<?> scheduledFuture;
+		Runnable command = new PrioritizedRunnable(() -> {
+			process(task, scheduledExecution);
+		}, task.getPriority());
 		if (scheduledExecution.isRepeatable()) {
-			scheduledFuture = scheduledExecutorService.scheduleWithFixedDelay(() -> {
-				process(task, scheduledExecution);
-			}, initialDelay, period, timeUnit);
+			scheduledFuture = scheduledExecutorService.scheduleWithFixedDelay(command, initialDelay, period, timeUnit);
 		} else {
-			scheduledFuture = scheduledExecutorService.schedule(() -> {
-				process(task, scheduledExecution);
-			}, initialDelay, timeUnit);
+			scheduledFuture = scheduledExecutorService.schedule(command, initialDelay, timeUnit);
 		}
 		scheduledExecution.setFuture(scheduledFuture);
 		return scheduledExecution;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public <K, V> Execution execute(SingleTask<K, V> task, @SuppressWarnings("rawtypes") IObserver... observers) {
 		Preconditions.checkNotNull(task, "task is null");
-		if (observers.length == 0) {
-			throw new IllegalArgumentException("At least 1 observer should be provided");
+		checkObservers(observers);
+		return registerAndExecute(task, observers);
+	}
+
+	@Override
+	public <K, V> List<Execution> executeAll(Collection<? extends SingleTask<K, V>> tasks,
+			@SuppressWarnings("rawtypes") IObserver... observers) {
+		Preconditions.checkNotNull(tasks, "tasks is null");
+		checkObservers(observers);
+		for (SingleTask<K, V> task : tasks) {
+			Preconditions.checkNotNull(task, "task is null");
+		}
+		List<Execution> executions = new ArrayList<>(tasks.size());
+		for (SingleTask<K, V> task : tasks) {
+			executions.add(executeTask(task, false, observers));
 		}
-		Arrays.stream(observers).forEach(observer -> {
+		return executions;
+	}
+
+	@Override
+	public <K, V> CompletableFuture<V> submit(SingleTask<K, V> task,
+			@SuppressWarnings("rawtypes") IObserver... observers) {
+		Preconditions.checkNotNull(task, "task is null");
+		return registerAndExecute(task, observers).getResult();
+	}
+
+	@Override
+	public <K> GraphExecution<K> execute(TaskGraph<K> graph) {
+		Preconditions.checkNotNull(graph, "graph is null");
+		return new TaskGraphRunner<>(graph, this::registerAndExecute, observerManager).run();
+	}
+
+	private <K, V> Execution registerAndExecute(SingleTask<K, V> task,
+			@SuppressWarnings("rawtypes") IObserver... observers) {
+		return executeTask(task, true, observers);
+	}
+
+	/**
+	 * Binds the observers to the task.
+	 */
+	@SuppressWarnings("unchecked")
+	private <K, V> void bindObservers(SingleTask<K, V> task, @SuppressWarnings("rawtypes") IObserver... observers) {
+		for (@SuppressWarnings("rawtypes") IObserver observer : observers) {
 			observerManager.add(task, observer);
-		});
-		Execution execution = executedTasks.get(task);
-		if (execution == null) {
-			lock.lock();
-			try {
-				execution = executedTasks.get(task);
-				if (execution == null) {
-					execution = executeTask(task);
-				}
-			} finally {
-				lock.unlock();
+		}
+	}
+
+	/**
+	 * Subscribes the {@link IStreamObserver}s to the elements of the
+	 * {@link StreamingTask}, which is the instance to be run.
+	 */
+	@SuppressWarnings("unchecked")
+	private <K, V> void subscribe(AbstractTask<K, V> task, @SuppressWarnings("rawtypes") IObserver... observers) {
+		if (!(task instanceof StreamingTask)) {
+			return;
+		}
+		for (@SuppressWarnings("rawtypes") IObserver observer : observers) {
+			if (observer instanceof IStreamObserver) {
+				((StreamingTask<K, ?>) task).subscribe((IStreamObserver<Object>) observer);
+			}
+		}
+	}
+
+	/**
+	 * Ends the subscriptions to the {@link StreamingTask}, which isn't run for
+	 * them any more. They are ended before the task is unregistered, so they
+	 * can't be confused with the ones of its next execution.
+	 */
+	private <K, V> void unsubscribe(AbstractTask<K, V> task) {
+		if (task instanceof StreamingTask) {
+			((StreamingTask<?, ?>) task).unsubscribeAll();
+		}
+	}
+
+	/**
+	 * Subscribes the {@link IStreamObserver}s to the executed instance of an
+	 * equal task, which the specified one has been deduplicated to. Nothing is
+	 * subscribed once that run has finished.
+	 */
+	private <K, V> void subscribeRegistered(SingleTask<K, V> task,
+			@SuppressWarnings("rawtypes") IObserver... observers) {
+		if (!(task instanceof StreamingTask)) {
+			return;
+		}
+		AbstractTask<K, V> registered = executedTasks.getTask(task.getKey());
+		if (task.equals(registered)) {
+			subscribe(registered, observers);
+		}
+	}
+
+	/**
+	 * Completes the execution with the cached result and notifies the
+	 * specified observers in the calling thread, or through the notifier
+	 * threads in asynchronous notification mode.
+	 */
+	private <K, V> Execution completeFromCache(SingleTask<K, V> task, V data,
+			@SuppressWarnings("rawtypes") IObserver... observers) {
+		Execution execution = new Execution();
+		execution.setTaskStatus(TaskStatus.COMPLETED);
+		execution.<V> getResult().complete(data);
+		execution.setFuture(execution.getResult());
+		observerManager.notifyObservers(new TaskResult<>(task, data, execution), observers);
+		return execution;
+	}
+
+	/**
+	 * Completes the task from the cache, or registers the task and hands it
+	 * off for execution. Of concurrent callers registering the same task only
+	 * one hands it off, the others get the registered execution. The hand-off
+	 * happens without holding any lock, so a submitter blocked by the overload
+	 * policy doesn't stall others.
+	 *
+	 * @param rejectionThrown
+	 *            whether a rejected hand-off is thrown, otherwise the execution
+	 *            fails with the rejection
+	 */
+	@SuppressWarnings("unchecked")
+	private <K, V> Execution executeTask(SingleTask<K, V> task, boolean rejectionThrown,
+			@SuppressWarnings("rawtypes") IObserver... observers) {
+		if (resultCache != null && task instanceof ICacheableTask) {
+			ResultCache.Entry entry = resultCache.get(task);
+			if (entry != null) {
+				return completeFromCache(task, entry.<V> getValue(), observers);
 			}
 		}
+		bindObservers(task, observers);
+		// the plain lookup spares creating an execution for a registered task
+		Execution registered = executedTasks.get(task);
+		Execution execution = null;
+		if (registered == null) {
+			execution = createExecution(task);
+			registered = executedTasks.putIfAbsent(task, execution);
+		}
+		if (registered != null) {
+			subscribeRegistered(task, observers);
+			return registered;
+		}
+		// subscribed before the first element can be emitted
+		subscribe(task, observers);
+		if (task instanceof BatchableTask) {
+			execution.setFuture(execution.getResult());
+			taskBatcher.add((BatchableTask<K, V>) task, execution);
+			return execution;
+		}
+		try {
+			dispatch(task, execution);
+		} catch (RuntimeException e) {
+			if (rejectionThrown) {
+				unsubscribe(task);
+				executedTasks.remove(task, execution);
+				observerManager.removeAll(task);
+				throw e;
+			}
+			execution.getFuture().cancel(false);
+			onTaskFailed(task, e, execution);
+			unregister(task, execution);
+		}
 		return execution;
 	}
 
-	private <K, V> Execution executeTask(AbstractTask<K, V> task) {
-		Execution execution = newExecution(task);
-		Future<?> future = executorService.submit(() -> {
+	/**
+	 * Hands the registered task off to the executor, through the bulkheads if
+	 * there are any.
+	 */
+	private <K, V> void dispatch(AbstractTask<K, V> task, Execution execution) {
+		RejectableTask future = newAction(task, execution);
+		if (bulkheads.isEmpty()) {
+			executorService.execute(future);
+		} else {
+			bulkheads.execute(task, future);
+		}
+	}
+
+	/**
+	 * Creates the action, which runs the registered task on a worker and fails
+	 * it, if it is dropped from the execution queue.
+	 */
+	private <K, V> RejectableTask newAction(AbstractTask<K, V> task, Execution execution) {
+		RejectableTask future = new RejectableTask(() -> {
 			process(task, execution);
-		});
+		}, () -> {
+			try {
+				onTaskFailed(task, new TaskRejectedException("Task has been dropped from execution queue"),
+						execution);
+			} finally {
+				executedTasks.remove(task);
+			}
+		}, task.getPriority());
 		execution.setFuture(future);
-		return execution;
+		return future;
+	}
+
+	/**
+	 * Arms the next attempt of the failed task on the scheduler, if its
+	 * {@link RetryPolicy} allows it. No worker is held during the backoff, and
+	 * a cancellation during the backoff starts the attempt right away, so it
+	 * is reported without waiting. Minor tasks and repeatable executions,
+	 * which run again anyway, aren't retried.
+	 *
+	 * @return {@code true} if the task will be retried
+	 */
+	private <K, V> boolean scheduleRetry(AbstractTask<K, V> task, Throwable cause, Execution execution) {
+		if (!(task instanceof SingleTask) || execution.getParentExecution() != null) {
+			return false;
+		}
+		if (execution instanceof ScheduledExecution && ((ScheduledExecution) execution).isRepeatable()) {
+			return false;
+		}
+		RetryPolicy retryPolicy = task.getRetryPolicy();
+		int attempt = execution.getAttempts();
+		if (!retryPolicy.shouldRetry(attempt, cause)
+				|| !execution.compareAndSetTaskStatus(TaskStatus.STARTED, TaskStatus.RETRYING)) {
+			return false;
+		}
+		LOGGER.debug(String.format("Task will be retried [key=%s, attempt=%d]", task.getKey(), attempt), cause);
+		AtomicBoolean started = new AtomicBoolean();
+		Runnable nextAttempt = () -> {
+			if (started.compareAndSet(false, true)) {
+				retry(task, execution);
+			}
+		};
+		execution.getCancellationToken().addCallback(nextAttempt);
+		scheduledExecutorService.schedule(nextAttempt, retryPolicy.getBackoffNanos(attempt), TimeUnit.NANOSECONDS);
+		return true;
+	}
+
+	/**
+	 * Starts the next attempt of the task the way its first one has been
+	 * started: on the scheduler, in a batch or on a worker.
+	 */
+	@SuppressWarnings("unchecked")
+	private <K, V> void retry(AbstractTask<K, V> task, Execution execution) {
+		if (execution instanceof ScheduledExecution) {
+			// scheduled tasks run on the scheduler
+			process(task, execution);
+			return;
+		}
+		if (metrics != null) {
+			// the queue wait of the attempt starts with its hand-off
+			execution.setSubmittedNanos(System.nanoTime());
+		}
+		if (task instanceof BatchableTask) {
+			// the next attempt joins a batch again
+			taskBatcher.add((BatchableTask<K, V>) task, execution);
+			return;
+		}
+		try {
+			OverloadHandler.runInternally(() -> {
+				dispatch(task, execution);
+			});
+		} catch (RuntimeException e) {
+			try {
+				onTaskFailed(task, e, execution);
+			} finally {
+				executedTasks.remove(task, execution);
+			}
+		}
+	}
+
+	private <K, V> void dispatchBatch(TaskBatcher.TaskBatch<K, V> batch) {
+		List<BatchableTask<K, V>> tasks = batch.getTasks();
+		RejectableTask future = new RejectableTask(() -> {
+			processBatch(batch);
+		}, () -> {
+			failBatch(batch, new TaskRejectedException("Batch has been dropped from execution queue"));
+		}, tasks.get(0).getPriority());
+		try {
+			// batches are closed by the timer or on behalf of many submitters
+			OverloadHandler.runInternally(() -> {
+				executorService.execute(future);
+			});
+		} catch (RuntimeException e) {
+			failBatch(batch, e);
+		}
+	}
+
+	private <K, V> void failBatch(TaskBatcher.TaskBatch<K, V> batch, Throwable cause) {
+		List<BatchableTask<K, V>> tasks = batch.getTasks();
+		List<Execution> executions = batch.getExecutions();
+		for (int i = 0; i < tasks.size(); i++) {
+			try {
+				onTaskFailed(tasks.get(i), cause, executions.get(i));
+			} finally {
+				executedTasks.remove(tasks.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Processes the keys of the batched tasks by one call and completes every
+	 * task with the result of its key. Tasks canceled or finished otherwise
+	 * while waiting for the batch are left out. Every task of the batch runs
+	 * for as long as the whole call, and times out by its own deadline. The
+	 * call runs with the token of the batch, which is canceled once all of its
+	 * tasks are canceled or timed out.
+	 */
+	private <K, V> void processBatch(TaskBatcher.TaskBatch<K, V> batch) {
+		List<BatchableTask<K, V>> tasks = new ArrayList<>();
+		List<Execution> executions = new ArrayList<>();
+		List<K> keys = new ArrayList<>();
+		List<Future<?>> deadlines = new ArrayList<>();
+		long startNanos = 0;
+		for (int i = 0; i < batch.getTasks().size(); i++) {
+			BatchableTask<K, V> task = batch.getTasks().get(i);
+			Execution execution = batch.getExecutions().get(i);
+			if (execution.isCanceled()) {
+				try {
+					onTaskCanceled(task, execution);
+				} finally {
+					executedTasks.remove(task);
+				}
+				continue;
+			}
+			if (!execution.setTaskStatus(TaskStatus.STARTED)) {
+				executedTasks.remove(task, execution);
+				continue;
+			}
+			long taskStartNanos = onTaskStarted(task, execution);
+			if (tasks.isEmpty()) {
+				startNanos = taskStartNanos;
+			}
+			tasks.add(task);
+			executions.add(execution);
+			keys.add(task.getKey());
+			Future<?> deadline = scheduleDeadline(task, execution);
+			if (deadline != null) {
+				deadlines.add(deadline);
+			}
+		}
+		if (tasks.isEmpty()) {
+			return;
+		}
+		CancellationToken cancellationToken = new CancellationToken();
+		AtomicInteger running = new AtomicInteger(executions.size());
+		Runnable onCanceled = () -> {
+			if (running.decrementAndGet() == 0) {
+				cancellationToken.cancel();
+			}
+		};
+		for (Execution execution : executions) {
+			execution.getCancellationToken().addCallback(onCanceled);
+		}
+		Map<K, V> results = null;
+		RuntimeException failure = null;
+		cancellationToken.attach(config.isInterruptOnCancel());
+		try {
+			results = tasks.get(0).processBatch(Collections.unmodifiableList(keys));
+			Preconditions.checkNotNull(results, "Batch has returned null");
+		} catch (RuntimeException e) {
+			failure = e;
+		} finally {
+			cancellationToken.detach();
+			for (Execution execution : executions) {
+				execution.getCancellationToken().removeCallback(onCanceled);
+			}
+			for (Future<?> deadline : deadlines) {
+				deadline.cancel(false);
+			}
+		}
+		for (int i = 0; i < tasks.size(); i++) {
+			BatchableTask<K, V> task = tasks.get(i);
+			Execution execution = executions.get(i);
+			onTaskFinished(task, startNanos);
+			try {
+				if (execution.getTaskStatus() == TaskStatus.TIMED_OUT) {
+					LOGGER.debug(String.format("Task has stopped after its deadline [key=%s]", task.getKey()));
+				} else if (failure == null && results.containsKey(task.getKey())) {
+					onTaskCompleted(task, results.get(task.getKey()), execution);
+				} else if (failure != null) {
+					onTaskStopped(task, failure, execution);
+				} else {
+					// the batch may have given up on the key of a canceled task
+					onTaskStopped(task, new ProcessorException(
+							String.format("Batch has returned no result for key=%s", task.getKey())), execution);
+				}
+			} catch (RuntimeException e) {
+				onTaskFailed(task, e, execution);
+			} finally {
+				// a task waiting for its next attempt stays registered
+				if (execution.getTaskStatus().isTerminal()) {
+					unregister(task, execution);
+				}
+			}
+		}
 	}
 
 	private <K, V> void process(AbstractTask<K, V> task, Execution execution) {
+		long startNanos = 0;
+		Future<?> deadline = null;
 		try {
-			execution.setTaskStatus(TaskStatus.STARTED);
+			if (execution.setTaskStatus(TaskStatus.STARTED)) {
+				startNanos = onTaskStarted(task, execution);
+				deadline = scheduleDeadline(task, execution);
+			}
 			if (task instanceof AggregatedTask) {
 				processAggregatedTask((AggregatedTask<K, V>) task, execution);
+				completeAggregatedTask((AggregatedTask<K, V>) task, execution);
 			} else {
 				processSingleTask((SingleTask<K, V>) task, execution);
 			}
 		} catch (RuntimeException e) {
-			onTaskFailed(task, e, execution);
+			onTaskStopped(task, e, execution);
 		} finally {
-			executedTasks.remove(task);
-			if (execution instanceof ScheduledExecution) {
-				if (execution.isCanceled() || !((ScheduledExecution) execution).isRepeatable()) {
-					scheduledTasks.remove(task);
-				}
+			if (deadline != null) {
+				deadline.cancel(false);
+			}
+			onTaskFinished(task, startNanos);
+			// a task waiting for its next attempt stays registered
+			if (execution.getTaskStatus().isTerminal()) {
+				unregister(task, execution);
+			}
+		}
+	}
+
+	private <K, V> void unregister(AbstractTask<K, V> task, Execution execution) {
+		if (!(execution instanceof ScheduledExecution)) {
+			unsubscribe(task);
+			executedTasks.remove(task, execution);
+			return;
+		}
+		if (execution.isCanceled() || !((ScheduledExecution) execution).isRepeatable()) {
+			unsubscribe(task);
+			if (scheduledTasks.remove(task, (ScheduledExecution) execution)) {
+				journalRemove(task);
+			}
+		}
+	}
+
+	private <K, V> void completeAggregatedTask(AggregatedTask<K, V> aggregatedTask, Execution execution) {
+		if (execution.getTaskStatus() == TaskStatus.TIMED_OUT) {
+			// the deadline has already completed the execution
+			return;
+		}
+		if (!execution.isCanceled() && execution.setTaskStatus(TaskStatus.COMPLETED)) {
+			execution.getResult().complete(null);
+			if (metrics != null) {
+				metrics.onCompleted(aggregatedTask);
 			}
+			return;
+		}
+		execution.setTaskStatus(TaskStatus.CANCELED);
+		execution.getResult().cancel(false);
+		if (metrics != null) {
+			metrics.onCanceled(aggregatedTask);
 		}
+		execution.getFuture().cancel(false);
 	}
 
 	private <K, V> void processAggregatedTask(AggregatedTask<K, V> aggregatedTask, Execution execution) {
@@ -231,78 +944,371 @@ public class ProcessorServiceImpl implements IProcessorService {
 				innerTask.cancel();
 			});
 		}
-		ExecutorService executorService = Executors.newFixedThreadPool(DEFAULT_PARALLEL_THREADS);
+		Map<SingleTask<K, V>, FutureTask<?>> innerFutures = new LinkedHashMap<>();
+		List<Execution> innerExecutions = new ArrayList<>();
 		aggregatedTask.getTasks().forEach(innerTask -> {
-			Execution innerExecution = newExecution(innerTask);
+			Execution innerExecution = createExecution(innerTask);
 			innerExecution.setParentExecution(execution);
-			Future<?> future = executorService.submit(() -> {
+			try {
+				executedTasks.put(innerTask, innerExecution);
+			} catch (IllegalArgumentException e) {
+				// the minor's key is registered by an executed task of another class
+				onTaskFailed(innerTask, e, innerExecution);
+				return;
+			}
+			FutureTask<?> future = new FutureTask<>(() -> {
+				long startNanos = 0;
+				Future<?> deadline = null;
 				try {
-					innerExecution.setTaskStatus(TaskStatus.STARTED);
+					if (innerExecution.setTaskStatus(TaskStatus.STARTED)) {
+						startNanos = onTaskStarted(innerTask, innerExecution);
+						deadline = scheduleDeadline(innerTask, innerExecution);
+					}
 					if (innerExecution.isCanceled()) {
 						onTaskCanceled(innerTask, innerExecution);
 						aggregatedTask.removeTask(innerTask);
+						journalRemove(innerTask);
 					} else {
-						V result = innerTask.process();
+						V result = runTask(innerTask, innerExecution);
 						onTaskCompleted(innerTask, result, innerExecution);
 					}
 				} catch (RuntimeException e) {
-					onTaskFailed(innerTask, e, innerExecution);
+					onTaskStopped(innerTask, e, innerExecution);
 				} finally {
+					if (deadline != null) {
+						deadline.cancel(false);
+					}
+					onTaskFinished(innerTask, startNanos);
 					executedTasks.remove(innerTask);
 				}
-			});
+			}, null);
 			innerExecution.setFuture(future);
+			innerFutures.put(innerTask, future);
+			innerExecutions.add(innerExecution);
 		});
-		executorService.shutdown();
+		// canceling the aggregate stops its running minors and skips the rest
+		Runnable cancelInnerExecutions = () -> innerExecutions.forEach(Execution::cancel);
+		execution.getCancellationToken().addCallback(cancelInnerExecutions);
 		try {
-			if (!executorService.isShutdown()) {
-				boolean terminated = executorService.awaitTermination(DEFAULT_KEEP_ALIVE_TIME_MINUTES,
-						TimeUnit.MINUTES);
-				if (!terminated) {
-					executorService.shutdownNow();
-					throw new ProcessorException("Some tasks has been terminated, before completion");
+			awaitInnerTasks(aggregatedTask, innerFutures, execution.getCancellationToken());
+		} finally {
+			execution.getCancellationToken().removeCallback(cancelInnerExecutions);
+		}
+	}
+
+	/**
+	 * Runs the inner tasks and waits until they have finished or the
+	 * aggregate's token has been canceled. Inner tasks canceled together with
+	 * the token are finished by the workers without the aggregate waiting.
+	 */
+	private <K, V> void awaitInnerTasks(AggregatedTask<K, V> aggregatedTask,
+			Map<SingleTask<K, V>, FutureTask<?>> innerFutures, CancellationToken cancellationToken) {
+		// a fixed number of workers drains the inner tasks, so no more than
+		// the aggregate's parallelism occupies the shared pool at once
+		Queue<SingleTask<K, V>> pendingTasks = new ConcurrentLinkedQueue<>(innerFutures.keySet());
+		int workers = Math.min(aggregatedTask.getParallelism(), pendingTasks.size());
+		AtomicInteger runningWorkers = new AtomicInteger(workers);
+		CountDownLatch completion = new CountDownLatch(workers == 0 ? 0 : 1);
+		for (int i = 0; i < workers; i++) {
+			aggregateExecutorService.execute(() -> {
+				try {
+					SingleTask<K, V> innerTask;
+					while ((innerTask = pendingTasks.poll()) != null) {
+						runBlocking(innerFutures.get(innerTask));
+					}
+				} finally {
+					if (runningWorkers.decrementAndGet() == 0) {
+						completion.countDown();
+					}
 				}
-			}
+			});
+		}
+		Runnable release = completion::countDown;
+		cancellationToken.addCallback(release);
+		try {
+			completion.await();
 		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 			throw new ProcessorException(e);
+		} finally {
+			cancellationToken.removeCallback(release);
+		}
+	}
+
+	/**
+	 * Runs the minor task as a blocking action of the aggregate pool, so the
+	 * pool compensates for the worker blocked by the minor's I/O and the
+	 * minors of other aggregates keep running.
+	 */
+	private static void runBlocking(FutureTask<?> future) {
+		try {
+			ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+
+				@Override
+				public boolean block() {
+					future.run();
+					return true;
+				}
+
+				@Override
+				public boolean isReleasable() {
+					return future.isDone();
+				}
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			// the minor must still report its outcome, it is run once at most
+			future.run();
+		}
+	}
+
+	/**
+	 * Schedules the deadline of the started task on the scheduler, or returns
+	 * {@code null} if the task has no deadline.
+	 */
+	private <K, V> Future<?> scheduleDeadline(AbstractTask<K, V> task, Execution execution) {
+		long timeoutNanos;
+		if (task.getTimeoutMillis() > 0) {
+			timeoutNanos = TimeUnit.MILLISECONDS.toNanos(task.getTimeoutMillis());
+		} else if (task instanceof AggregatedTask) {
+			timeoutNanos = config.getAggregateTimeoutUnit().toNanos(config.getAggregateTimeout());
+		} else {
+			timeoutNanos = config.getTaskTimeoutUnit().toNanos(config.getTaskTimeout());
+		}
+		if (timeoutNanos == ProcessorServiceConfig.NO_TIMEOUT) {
+			return null;
+		}
+		CancellationToken cancellationToken = execution.getCancellationToken();
+		return scheduledExecutorService.schedule(() -> {
+			onTaskTimedOut(task, execution, cancellationToken);
+		}, timeoutNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Completes the run, which has exceeded its deadline, and cancels its
+	 * token, so the task stops cooperatively. The thread running the task
+	 * isn't waited for, a result it returns later is ignored. The execution is
+	 * unregistered right away, so an equal task executed meanwhile gets a new
+	 * execution.
+	 * <p>
+	 * The result, the observers and the callbacks of the token are completed
+	 * on the aggregate pool rather than on the scheduler thread, which mustn't
+	 * be held by them. The workers may all be held by tasks waiting for their
+	 * tokens, while the aggregate pool compensates its blocked threads. If the
+	 * pool has been shut down, they are completed in place.
+	 */
+	private <K, V> void onTaskTimedOut(AbstractTask<K, V> task, Execution execution,
+			CancellationToken cancellationToken) {
+		// a deadline of a previous run of a repeatable task is stale
+		if (execution.getCancellationToken() != cancellationToken
+				|| !execution.compareAndSetTaskStatus(TaskStatus.STARTED, TaskStatus.TIMED_OUT)) {
+			return;
+		}
+		if (metrics != null) {
+			metrics.onFailed(task);
+		}
+		unregister(task, execution);
+		TaskTimeoutException cause = new TaskTimeoutException(
+				String.format("Task has exceeded its deadline [key=%s]", task.getKey()));
+		Runnable completion = () -> {
+			execution.getResult().completeExceptionally(cause);
+			try {
+				notifyObservers(new TaskResult<>(task, cause, execution, TaskStatus.TIMED_OUT));
+			} finally {
+				cancellationToken.cancel();
+			}
+		};
+		try {
+			aggregateExecutorService.execute(completion);
+		} catch (RejectedExecutionException e) {
+			completion.run();
+		}
+	}
+
+	/**
+	 * Records the start of the task, once it has moved to
+	 * {@link TaskStatus#STARTED}, and returns the start time, or {@code 0} if
+	 * metrics are disabled.
+	 */
+	private <K, V> long onTaskStarted(AbstractTask<K, V> task, Execution execution) {
+		if (metrics == null) {
+			return 0;
+		}
+		long startNanos = System.nanoTime();
+		metrics.onStarted(task);
+		if (!(execution instanceof ScheduledExecution) && execution.getSubmittedNanos() != 0) {
+			metrics.recordQueueWait(task, startNanos - execution.getSubmittedNanos());
+		}
+		return startNanos;
+	}
+
+	/**
+	 * Records the run time of the task, unless it hasn't started, which is
+	 * told by {@code startNanos} of {@code 0}.
+	 */
+	private <K, V> void onTaskFinished(AbstractTask<K, V> task, long startNanos) {
+		if (metrics != null && startNanos != 0) {
+			metrics.recordRunTime(task, System.nanoTime() - startNanos);
 		}
 	}
 
 	private <K, V> void onTaskCanceled(AbstractTask<K, V> task, Execution execution) {
-		execution.setTaskStatus(TaskStatus.CANCELED);
-		observerManager.notifyObservers(new TaskResult<>(task, null, execution));
+		// a task canceled before start is already in the final status
+		if (!execution.setTaskStatus(TaskStatus.CANCELED) && execution.getTaskStatus() != TaskStatus.CANCELED) {
+			LOGGER.warn(String.format("Cancellation is ignored [key=%s, taskStatus=%s]", task.getKey(),
+					execution.getTaskStatus()));
+			return;
+		}
+		execution.getResult().cancel(false);
+		if (metrics != null) {
+			metrics.onCanceled(task);
+		}
+		notifyObservers(new TaskResult<>(task, null, execution, TaskStatus.CANCELED));
 		execution.getFuture().cancel(false);
 	}
 
 	private <K, V> void onTaskCompleted(AbstractTask<K, V> task, V data, Execution execution) {
-		execution.setTaskStatus(TaskStatus.COMPLETED);
-		observerManager.notifyObservers(new TaskResult<>(task, data, execution));
+		if (!execution.setTaskStatus(TaskStatus.COMPLETED)) {
+			LOGGER.warn(String.format("Completion is ignored [key=%s, taskStatus=%s]", task.getKey(),
+					execution.getTaskStatus()));
+			return;
+		}
+		if (resultCache != null && task instanceof ICacheableTask) {
+			resultCache.put(task, data, ((ICacheableTask<K, V>) task).getTimeToLiveMillis());
+		}
+		execution.<V> getResult().complete(data);
+		if (metrics != null) {
+			metrics.onCompleted(task);
+		}
+		notifyObservers(new TaskResult<>(task, data, execution, TaskStatus.COMPLETED));
 	}
 
 	private <K, V> void onTaskFailed(AbstractTask<K, V> task, Throwable cause, Execution execution) {
-		execution.setTaskStatus(TaskStatus.FAILED);
-		observerManager.notifyObservers(new TaskResult<>(task, cause, execution));
+		if (!execution.setTaskStatus(TaskStatus.FAILED)) {
+			if (execution.getTaskStatus() == TaskStatus.CANCELED && !execution.getResult().isDone()) {
+				// canceled while waiting, observers haven't been notified yet
+				onTaskCanceled(task, execution);
+			} else {
+				LOGGER.warn(String.format("Failure is ignored [key=%s, taskStatus=%s]", task.getKey(),
+						execution.getTaskStatus()), cause);
+			}
+			return;
+		}
+		execution.getResult().completeExceptionally(cause);
+		if (metrics != null) {
+			metrics.onFailed(task);
+		}
+		notifyObservers(new TaskResult<>(task, cause, execution, TaskStatus.FAILED));
+	}
+
+	private <V> void notifyObservers(TaskResult<V> taskResult) {
+		Execution execution = taskResult.getExecution();
+		if (execution instanceof ScheduledExecution
+				&& scheduledTasks.getExecution(taskResult.getTask().getKey()) != execution) {
+			// replaced by an equal task, its observers are dropped and the bound ones are the new schedule's
+			return;
+		}
+		if (metrics == null) {
+			observerManager.notifyObservers(taskResult);
+			return;
+		}
+		long startNanos = System.nanoTime();
+		try {
+			observerManager.notifyObservers(taskResult);
+		} finally {
+			metrics.recordNotifyTime(System.nanoTime() - startNanos);
+		}
 	}
 
 	private <K, V> void processSingleTask(SingleTask<K, V> singleTask, Execution execution) {
 		if (execution.isCanceled()) {
 			onTaskCanceled(singleTask, execution);
 		} else {
-			V result = singleTask.process();
+			V result;
+			try {
+				result = runTask(singleTask, execution);
+			} catch (RuntimeException e) {
+				onTaskStopped(singleTask, e, execution);
+				return;
+			}
 			onTaskCompleted(singleTask, result, execution);
 		}
 	}
 
+	/**
+	 * Runs the task with the cancellation token of the execution attached to
+	 * the current thread.
+	 */
+	private <K, V> V runTask(SingleTask<K, V> task, Execution execution) {
+		CancellationToken cancellationToken = execution.getCancellationToken();
+		cancellationToken.attach(config.isInterruptOnCancel());
+		try {
+			return task.process();
+		} finally {
+			cancellationToken.detach();
+		}
+	}
+
+	/**
+	 * Handles the exception thrown by a task. A task failing after its
+	 * cancellation has been requested is considered canceled.
+	 */
+	private <K, V> void onTaskStopped(AbstractTask<K, V> task, RuntimeException e, Execution execution) {
+		if (execution.getTaskStatus() == TaskStatus.TIMED_OUT) {
+			LOGGER.debug(String.format("Task has stopped after its deadline [key=%s]", task.getKey()), e);
+		} else if (e instanceof TaskCanceledException || execution.getCancellationToken().isCancellationRequested()) {
+			onTaskCanceled(task, execution);
+		} else if (!scheduleRetry(task, e, execution)) {
+			onTaskFailed(task, e, execution);
+		}
+	}
+
+	@Override
+	public void shutdown() {
+		executorService.shutdown();
+		aggregateExecutorService.shutdown();
+		scheduledExecutorService.shutdown();
+		if (observerManager instanceof ObserverManagerImpl) {
+			((ObserverManagerImpl) observerManager).shutdown();
+		}
+		if (journal != null) {
+			// flushes the journal, records of tasks still finishing are not kept
+			journal.close();
+		}
+	}
+
+	/**
+	 * Returns the number of executed tasks waiting for a worker.
+	 */
+	public int getQueueDepth() {
+		if (executorService instanceof ThreadPoolExecutor) {
+			return ((ThreadPoolExecutor) executorService).getQueue().size();
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the number of executed tasks rejected or dropped by the
+	 * {@link OverloadPolicy} since the service has been created.
+	 */
+	public long getRejectedCount() {
+		return overloadHandler == null ? 0 : overloadHandler.getRejectedCount();
+	}
+
+	/**
+	 * Returns the metrics of the service, or {@code null} if they are disabled
+	 * by {@link ProcessorServiceConfig.Builder#metricsEnabled(boolean)}.
+	 */
+	public ProcessorMetrics getMetrics() {
+		return metrics;
+	}
+
 	@Override
 	public <K, V> Execution getExecution(K key) {
 		Preconditions.checkNotNull(key);
-		Execution execution = null;
-		AbstractTask<K, V> task = getTask(key);
-		if (task != null) {
-			execution = executedTasks.get(task);
-			if (execution == null) {
-				execution = scheduledTasks.get(task);
-			}
+		Execution execution = executedTasks.getExecution(key);
+		if (execution == null) {
+			execution = scheduledTasks.getExecution(key);
 		}
 		return execution;
 	}
@@ -313,6 +1319,24 @@ public class ProcessorServiceImpl implements IProcessorService {
 		Execution execution = getExecution(key);
 		if (execution != null) {
 			execution.cancel();
+			if (execution instanceof ScheduledExecution) {
+				journalRemove(scheduledTasks.getTask(key));
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <K, V> void journalRemove(AbstractTask<K, V> task) {
+		if (journal == null || task == null) {
+			return;
+		}
+		IJournalCodec codec = config.getJournalCodec();
+		if (task instanceof AggregatedTask) {
+			((AggregatedTask<K, V>) task).getTasks().forEach(innerTask -> {
+				journal.recordRemove(codec.encode(innerTask));
+			});
+		} else if (task instanceof SingleTask) {
+			journal.recordRemove(codec.encode((SingleTask<K, V>) task));
 		}
 	}
 
@@ -0,0 +1,133 @@
+package org.jongshin.executor.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.log4j.Logger;
+import org.jongshin.executor.task.TaskPriority;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Runs an action repeatedly on a scheduler by arming one one-shot run at a
+ * time. The next run is armed once the previous one has finished, so runs
+ * never overlap, and its delay is computed by the subclass. The trigger is
+ * done only when it is canceled or has no next run.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+abstract class RecurringTrigger implements ScheduledFuture<Object>, Runnable {
+
+	private static final Logger LOGGER = Logger.getLogger(RecurringTrigger.class);
+
+	/**
+	 * The delay returned by {@link #getNextDelayNanos()} if there is no next
+	 * run.
+	 */
+	static final long NO_NEXT_RUN = Long.MIN_VALUE;
+
+	private final ScheduledExecutorService scheduler;
+	private final Runnable command;
+	private final CompletableFuture<Object> termination;
+	private volatile ScheduledFuture<?> future;
+
+	/**
+	 * @param scheduler
+	 *            the scheduler, which runs the action
+	 * @param command
+	 *            the action to run
+	 * @param priority
+	 *            the priority of the action on the scheduler
+	 */
+	RecurringTrigger(ScheduledExecutorService scheduler, Runnable command, TaskPriority priority) {
+		Preconditions.checkNotNull(scheduler);
+		Preconditions.checkNotNull(command);
+		this.scheduler = scheduler;
+		this.command = new PrioritizedRunnable(command, priority);
+		termination = new CompletableFuture<>();
+	}
+
+	/**
+	 * Returns the delay of the next run, which is computed once the previous
+	 * run has finished, or {@link #NO_NEXT_RUN}.
+	 */
+	protected abstract long getNextDelayNanos();
+
+	@Override
+	public void run() {
+		if (isDone()) {
+			return;
+		}
+		try {
+			command.run();
+		} finally {
+			if (!isDone()) {
+				arm(getNextDelayNanos());
+			}
+		}
+	}
+
+	/**
+	 * Arms the run after the specified delay, or stops the trigger if the
+	 * delay is {@link #NO_NEXT_RUN}.
+	 */
+	protected void arm(long delayNanos) {
+		if (delayNanos == NO_NEXT_RUN) {
+			cancel(false);
+			return;
+		}
+		try {
+			future = scheduler.schedule(this, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException e) {
+			LOGGER.debug(String.format("Trigger has been stopped on shutdown [trigger=%s]", this));
+			cancel(false);
+			return;
+		}
+		if (isDone()) {
+			// canceled while arming
+			future.cancel(false);
+		}
+	}
+
+	@Override
+	public int compareTo(Delayed other) {
+		return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		boolean canceled = termination.cancel(false);
+		ScheduledFuture<?> current = future;
+		if (current != null) {
+			current.cancel(mayInterruptIfRunning);
+		}
+		return canceled;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return termination.isCancelled();
+	}
+
+	@Override
+	public boolean isDone() {
+		return termination.isDone();
+	}
+
+	@Override
+	public Object get() throws InterruptedException, ExecutionException {
+		return termination.get();
+	}
+
+	@Override
+	public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		return termination.get(timeout, unit);
+	}
+}
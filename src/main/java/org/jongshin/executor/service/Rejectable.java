@@ -0,0 +1,13 @@
+package org.jongshin.executor.service;
+
+/**
+ * Implemented by the queued actions, which know how to fail their execution,
+ * if they are dropped without being run.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+interface Rejectable {
+
+	void reject();
+}
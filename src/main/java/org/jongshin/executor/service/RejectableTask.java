@@ -0,0 +1,36 @@
+package org.jongshin.executor.service;
+
+import java.util.concurrent.FutureTask;
+
+import org.jongshin.executor.task.TaskPriority;
+
+/**
+ * A {@link FutureTask}, which knows how to fail its execution, if it is
+ * dropped from the execution queue without being run.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+class RejectableTask extends FutureTask<Void> implements Prioritized, Rejectable {
+
+	private final Runnable onReject;
+	private final TaskPriority priority;
+
+	RejectableTask(Runnable runnable, Runnable onReject, TaskPriority priority) {
+		super(runnable, null);
+		this.onReject = onReject;
+		this.priority = priority;
+	}
+
+	@Override
+	public TaskPriority getPriority() {
+		return priority;
+	}
+
+	@Override
+	public void reject() {
+		if (cancel(false)) {
+			onReject.run();
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package org.jongshin.executor.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jongshin.executor.task.ITask;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Holds the computation results of completed tasks by task's class and key,
+ * so tasks of different classes with equal keys don't share results. The
+ * number of results is bounded, the least recently used ones are evicted
+ * first. Every result expires after its own time to live. Expired results are
+ * removed when they are read, and the whole cache is swept for them by
+ * {@link #purge()}, which the service runs on its scheduler once per
+ * {@link #PURGE_INTERVAL_NANOS}, so results, which are never read again, don't
+ * stay until they are evicted and no sweep runs on the threads accessing the
+ * cache.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+class ResultCache {
+
+	static final long PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final Cache<CacheKey, Entry> entries;
+	private final LongAdder hitCount;
+	private final LongAdder missCount;
+
+	/**
+	 * @param maximumSize
+	 *            the maximum number of cached results
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if {@code maximumSize} <= 0
+	 */
+	ResultCache(int maximumSize) {
+		Preconditions.checkArgument(maximumSize > 0, "Illegal maximumSize=%s", maximumSize);
+		entries = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+		hitCount = new LongAdder();
+		missCount = new LongAdder();
+	}
+
+	/**
+	 * Returns the unexpired result cached for the specified task.
+	 * 
+	 * @return the entry or {@code null} if there is no unexpired result
+	 */
+	<K, V> Entry get(ITask<K, V> task) {
+		CacheKey key = new CacheKey(task);
+		long now = System.nanoTime();
+		Entry entry = entries.getIfPresent(key);
+		if (entry != null && entry.isExpired(now)) {
+			entries.asMap().remove(key, entry);
+			entry = null;
+		}
+		if (entry == null) {
+			missCount.increment();
+		} else {
+			hitCount.increment();
+		}
+		return entry;
+	}
+
+	/**
+	 * Caches the result of the specified task for the specified time, the
+	 * result isn't cached if {@code timeToLiveMillis} is not positive.
+	 */
+	<K, V> void put(ITask<K, V> task, Object value, long timeToLiveMillis) {
+		long now = System.nanoTime();
+		if (timeToLiveMillis > 0) {
+			entries.put(new CacheKey(task), new Entry(value, now + TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis)));
+		}
+	}
+
+	/**
+	 * Removes all expired results.
+	 */
+	void purge() {
+		long now = System.nanoTime();
+		entries.asMap().values().removeIf(entry -> entry.isExpired(now));
+	}
+
+	long size() {
+		return entries.size();
+	}
+
+	long getHitCount() {
+		return hitCount.sum();
+	}
+
+	long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * The cached result, which may be {@code null}.
+	 */
+	static final class Entry {
+		private final Object value;
+		private final long expiresAtNanos;
+
+		Entry(Object value, long expiresAtNanos) {
+			this.value = value;
+			this.expiresAtNanos = expiresAtNanos;
+		}
+
+		private boolean isExpired(long now) {
+			return expiresAtNanos - now <= 0;
+		}
+
+		@SuppressWarnings("unchecked")
+		<V> V getValue() {
+			return (V) value;
+		}
+	}
+
+	/**
+	 * The class and the key of a cached task.
+	 */
+	private static final class CacheKey {
+		private final Class<?> taskClass;
+		private final Object key;
+
+		<K, V> CacheKey(ITask<K, V> task) {
+			this.taskClass = task.getClass();
+			this.key = task.getKey();
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + taskClass.hashCode();
+			result = prime * result + ((key == null) ? 0 : key.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			CacheKey other = (CacheKey) obj;
+			if (taskClass != other.taskClass)
+				return false;
+			if (key == null) {
+				if (other.key != null)
+					return false;
+			} else if (!key.equals(other.key))
+				return false;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package org.jongshin.executor.service;
+
+/**
+ * Represents the implementation of the scheduler, which runs scheduled tasks.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public enum SchedulerType {
+	/**
+	 * {@link java.util.concurrent.ScheduledThreadPoolExecutor}, which keeps
+	 * schedules in a binary heap. Precise, insert and cancel cost O(log n).
+	 */
+	SCHEDULED_THREAD_POOL,
+	/**
+	 * {@link TimingWheelScheduler}. Fires with the precision of one tick,
+	 * insert and cancel cost O(1).
+	 */
+	TIMING_WHEEL;
+}
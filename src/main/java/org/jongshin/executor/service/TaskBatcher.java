@@ -0,0 +1,148 @@
+package org.jongshin.executor.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+import org.jongshin.executor.data.Execution;
+import org.jongshin.executor.task.BatchableTask;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Collects executed {@link BatchableTask}s by their batch group. A batch lives
+ * for one window: it is dispatched once it is full or its delay elapses, and a
+ * new batch is opened for the next task of the group.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+class TaskBatcher {
+
+	private static final Logger LOGGER = Logger.getLogger(TaskBatcher.class);
+
+	private final ScheduledExecutorService timer;
+	private final Consumer<TaskBatch<?, ?>> dispatcher;
+	private final Map<Object, TaskBatch<?, ?>> openBatches;
+
+	/**
+	 * @param timer
+	 *            the scheduler, which closes batches after their delay
+	 * @param dispatcher
+	 *            the action, which processes closed batches
+	 */
+	TaskBatcher(ScheduledExecutorService timer, Consumer<TaskBatch<?, ?>> dispatcher) {
+		Preconditions.checkNotNull(timer);
+		Preconditions.checkNotNull(dispatcher);
+		this.timer = timer;
+		this.dispatcher = dispatcher;
+		openBatches = new ConcurrentHashMap<>();
+	}
+
+	@SuppressWarnings("unchecked")
+	<K, V> void add(BatchableTask<K, V> task, Execution execution) {
+		Object group = task.getBatchGroup();
+		while (true) {
+			// a group is batched by tasks of one type
+			TaskBatch<K, V> batch = (TaskBatch<K, V>) openBatches.get(group);
+			if (batch == null) {
+				TaskBatch<K, V> newBatch = new TaskBatch<>(task.getMaxBatchSize());
+				batch = (TaskBatch<K, V>) openBatches.putIfAbsent(group, newBatch);
+				if (batch == null) {
+					batch = newBatch;
+					scheduleClose(group, newBatch, task.getMaxBatchDelayMillis());
+				}
+			}
+			int size = batch.add(task, execution);
+			if (size == batch.maxBatchSize) {
+				close(group, batch);
+			}
+			if (size != TaskBatch.CLOSED) {
+				return;
+			}
+		}
+	}
+
+	private void scheduleClose(Object group, TaskBatch<?, ?> batch, long delayMillis) {
+		try {
+			timer.schedule(() -> {
+				close(group, batch);
+			}, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			LOGGER.warn(String.format("Batch has been closed without delay on shutdown [group=%s]", group));
+			close(group, batch);
+		}
+	}
+
+	private void close(Object group, TaskBatch<?, ?> batch) {
+		openBatches.remove(group, batch);
+		if (batch.close()) {
+			dispatcher.accept(batch);
+		}
+	}
+
+	/**
+	 * The tasks of one batch window together with their executions.
+	 */
+	static final class TaskBatch<K, V> {
+		static final int CLOSED = -1;
+
+		private final int maxBatchSize;
+		private final List<BatchableTask<K, V>> tasks;
+		private final List<Execution> executions;
+		private boolean closed;
+
+		TaskBatch(int maxBatchSize) {
+			this.maxBatchSize = Math.max(1, maxBatchSize);
+			tasks = new ArrayList<>();
+			executions = new ArrayList<>();
+		}
+
+		/**
+		 * @return the size of the batch after the task has been added, or
+		 *         {@link #CLOSED} if the batch has been closed and the task has
+		 *         not been accepted
+		 */
+		synchronized int add(BatchableTask<K, V> task, Execution execution) {
+			if (closed || tasks.size() == maxBatchSize) {
+				return CLOSED;
+			}
+			tasks.add(task);
+			executions.add(execution);
+			return tasks.size();
+		}
+
+		/**
+		 * @return {@code true} if the batch has been closed by this call
+		 */
+		synchronized boolean close() {
+			if (closed) {
+				return false;
+			}
+			closed = true;
+			return true;
+		}
+
+		/**
+		 * Returns the tasks, may be called only once the batch is closed.
+		 */
+		List<BatchableTask<K, V>> getTasks() {
+			return Collections.unmodifiableList(tasks);
+		}
+
+		/**
+		 * Returns the executions in order of the tasks, may be called only
+		 * once the batch is closed.
+		 */
+		List<Execution> getExecutions() {
+			return Collections.unmodifiableList(executions);
+		}
+	}
+}
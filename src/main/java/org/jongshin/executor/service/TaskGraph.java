@@ -0,0 +1,170 @@
+package org.jongshin.executor.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jongshin.executor.oberservers.IObserver;
+import org.jongshin.executor.task.DependentTask;
+import org.jongshin.executor.task.SingleTask;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Describes tasks and dependencies between them by key. A task runs once
+ * every task it depends on has completed. A {@link DependentTask} receives
+ * the results of the tasks it depends on.
+ * 
+ * @author Vitalii_Kim
+ *
+ * @param <K>
+ *            the type of task's key
+ */
+public class TaskGraph<K> {
+
+	private final Map<K, SingleTask<K, ?>> tasks;
+	@SuppressWarnings("rawtypes")
+	private final Map<K, IObserver[]> observers;
+	private final Map<K, Set<K>> dependencies;
+
+	public TaskGraph() {
+		tasks = new LinkedHashMap<>();
+		observers = new HashMap<>();
+		dependencies = new HashMap<>();
+	}
+
+	/**
+	 * Adds the task as a node of the graph.
+	 * 
+	 * @param task
+	 *            the task to add
+	 * @param observers
+	 *            observers to be notified about task execution
+	 * @return this graph
+	 * 
+	 * @throws NullPointerException
+	 *             if {@code task} is {@code null}
+	 * @throws IllegalArgumentException
+	 *             if the graph already contains a task with the same key
+	 */
+	public <V> TaskGraph<K> addTask(SingleTask<K, V> task, @SuppressWarnings("rawtypes") IObserver... observers) {
+		Preconditions.checkNotNull(task, "task is null");
+		K key = task.getKey();
+		Preconditions.checkArgument(!tasks.containsKey(key), "Duplicate task [key=%s]", key);
+		tasks.put(key, task);
+		this.observers.put(key, observers.clone());
+		dependencies.put(key, new LinkedHashSet<>());
+		return this;
+	}
+
+	/**
+	 * Declares that the task with key {@code key} runs after the task with key
+	 * {@code dependsOn} has completed.
+	 * 
+	 * @return this graph
+	 * 
+	 * @throws NullPointerException
+	 *             if {@code key} or {@code dependsOn} is {@code null}
+	 * @throws IllegalArgumentException
+	 *             if the graph contains no task with key {@code key}
+	 */
+	public TaskGraph<K> addDependency(K key, K dependsOn) {
+		Preconditions.checkNotNull(key, "key is null");
+		Preconditions.checkNotNull(dependsOn, "dependsOn is null");
+		Set<K> taskDependencies = dependencies.get(key);
+		Preconditions.checkArgument(taskDependencies != null, "Unknown task [key=%s]", key);
+		taskDependencies.add(dependsOn);
+		return this;
+	}
+
+	public Set<K> getKeys() {
+		return Collections.unmodifiableSet(tasks.keySet());
+	}
+
+	public SingleTask<K, ?> getTask(K key) {
+		return tasks.get(key);
+	}
+
+	@SuppressWarnings("rawtypes")
+	IObserver[] getObservers(K key) {
+		return observers.get(key);
+	}
+
+	public Set<K> getDependencies(K key) {
+		Set<K> taskDependencies = dependencies.get(key);
+		return taskDependencies == null ? Collections.<K> emptySet() : Collections.unmodifiableSet(taskDependencies);
+	}
+
+	/**
+	 * Returns the keys of tasks ordered so that every task follows the tasks
+	 * it depends on.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if
+	 *             <li>a task depends on a key, which is not in the graph</li>
+	 *             <li>or the dependencies form a cycle</li>
+	 */
+	List<K> topologicalOrder() {
+		Map<K, Integer> inDegrees = new HashMap<>();
+		Map<K, List<K>> dependents = dependents();
+		tasks.keySet().forEach(key -> {
+			inDegrees.put(key, dependencies.get(key).size());
+		});
+		Deque<K> ready = new ArrayDeque<>();
+		inDegrees.forEach((key, inDegree) -> {
+			if (inDegree == 0) {
+				ready.add(key);
+			}
+		});
+		List<K> order = new ArrayList<>(tasks.size());
+		while (!ready.isEmpty()) {
+			K key = ready.poll();
+			order.add(key);
+			dependents.get(key).forEach(dependent -> {
+				if (inDegrees.merge(dependent, -1, Integer::sum) == 0) {
+					ready.add(dependent);
+				}
+			});
+		}
+		if (order.size() != tasks.size()) {
+			throw new IllegalArgumentException("Dependencies of tasks form a cycle");
+		}
+		return order;
+	}
+
+	/**
+	 * Returns the keys of tasks, which depend on each task.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if a task depends on a key, which is not in the graph
+	 */
+	Map<K, List<K>> dependents() {
+		Map<K, List<K>> dependents = new HashMap<>();
+		tasks.keySet().forEach(key -> {
+			dependents.put(key, new ArrayList<>());
+		});
+		dependencies.forEach((key, taskDependencies) -> {
+			taskDependencies.forEach(dependsOn -> {
+				List<K> taskDependents = dependents.get(dependsOn);
+				if (taskDependents == null) {
+					throw new IllegalArgumentException(
+							String.format("Unknown dependency [key=%s, dependsOn=%s]", key, dependsOn));
+				}
+				taskDependents.add(key);
+			});
+		});
+		return dependents;
+	}
+
+	@Override
+	public String toString() {
+		return "TaskGraph [tasks=" + tasks.keySet() + ", dependencies=" + dependencies + "]";
+	}
+}
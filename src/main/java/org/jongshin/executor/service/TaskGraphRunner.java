@@ -0,0 +1,142 @@
+package org.jongshin.executor.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jongshin.executor.data.Execution;
+import org.jongshin.executor.data.GraphExecution;
+import org.jongshin.executor.data.TaskResult;
+import org.jongshin.executor.data.TaskStatus;
+import org.jongshin.executor.oberservers.IObserver;
+import org.jongshin.executor.oberservers.IObserverManager;
+import org.jongshin.executor.task.DependentTask;
+import org.jongshin.executor.task.SingleTask;
+
+/**
+ * Runs the tasks of a {@link TaskGraph}. Every task is started as soon as the
+ * last task it depends on has completed, so independent branches run in
+ * parallel. If a task fails or is canceled, every task depending on it,
+ * directly or not, is skipped: it is never submitted, its result is canceled
+ * and its observers are notified of the cancellation, while the task itself
+ * is left untouched.
+ * 
+ * @author Vitalii_Kim
+ *
+ * @param <K>
+ *            the type of task's key
+ */
+class TaskGraphRunner<K> {
+
+	/**
+	 * Starts execution of a single task.
+	 */
+	interface Launcher {
+		<K, V> Execution launch(SingleTask<K, V> task, @SuppressWarnings("rawtypes") IObserver[] observers);
+	}
+
+	private final TaskGraph<K> graph;
+	private final Launcher launcher;
+	private final IObserverManager observerManager;
+	private final Map<K, List<K>> dependents;
+	private final Map<K, AtomicInteger> pendingDependencies;
+	private final Set<K> skipped;
+	private final Map<K, CompletableFuture<Object>> results;
+	private final GraphExecution<K> graphExecution;
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the graph has unknown dependencies or cycles
+	 */
+	TaskGraphRunner(TaskGraph<K> graph, Launcher launcher, IObserverManager observerManager) {
+		graph.topologicalOrder();
+		this.graph = graph;
+		this.launcher = launcher;
+		this.observerManager = observerManager;
+		dependents = graph.dependents();
+		pendingDependencies = new HashMap<>();
+		results = new HashMap<>();
+		graph.getKeys().forEach(key -> {
+			pendingDependencies.put(key, new AtomicInteger(graph.getDependencies(key).size()));
+			results.put(key, new CompletableFuture<>());
+		});
+		skipped = ConcurrentHashMap.newKeySet();
+		graphExecution = new GraphExecution<>(results);
+	}
+
+	GraphExecution<K> run() {
+		graph.getKeys().forEach(key -> {
+			if (pendingDependencies.get(key).get() == 0) {
+				launch(key);
+			}
+		});
+		return graphExecution;
+	}
+
+	private void launch(K key) {
+		SingleTask<K, ?> task = graph.getTask(key);
+		CompletableFuture<Object> result = results.get(key);
+		if (skipped.contains(key) || graphExecution.isCanceled()) {
+			skip(key, task);
+			return;
+		}
+		if (task instanceof DependentTask) {
+			Map<K, Object> inputs = new HashMap<>();
+			graph.getDependencies(key).forEach(dependsOn -> {
+				inputs.put(dependsOn, results.get(dependsOn).join());
+			});
+			((DependentTask<K, ?>) task).setInputs(inputs);
+		}
+		Execution execution;
+		try {
+			execution = launcher.launch(task, graph.getObservers(key));
+		} catch (RuntimeException e) {
+			result.completeExceptionally(e);
+			onDone(key, false);
+			return;
+		}
+		graphExecution.putExecution(key, execution);
+		execution.getResult().whenComplete((value, cause) -> {
+			if (cause == null) {
+				result.complete(value);
+			} else {
+				result.completeExceptionally(cause);
+			}
+			onDone(key, cause == null);
+		});
+	}
+
+	/**
+	 * Cancels the node without submitting its task, so neither a worker nor
+	 * the result cache is involved, and a task shared with other graphs or
+	 * submitted later is not affected.
+	 */
+	private void skip(K key, SingleTask<K, ?> task) {
+		Execution execution = new Execution();
+		execution.cancel();
+		execution.getResult().cancel(false);
+		graphExecution.putExecution(key, execution);
+		observerManager.notifyObservers(new TaskResult<>(task, null, execution, TaskStatus.CANCELED),
+				graph.getObservers(key));
+		results.get(key).cancel(false);
+		onDone(key, false);
+	}
+
+	private void onDone(K key, boolean completed) {
+		dependents.get(key).forEach(dependent -> {
+			if (!completed) {
+				skipped.add(dependent);
+			}
+			if (pendingDependencies.get(dependent).decrementAndGet() == 0) {
+				// launched from the worker, which has completed the last dependency
+				OverloadHandler.runInternally(() -> {
+					launch(dependent);
+				});
+			}
+		});
+	}
+}
@@ -0,0 +1,207 @@
+package org.jongshin.executor.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jongshin.executor.data.Execution;
+import org.jongshin.executor.task.AbstractTask;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Holds the executions of registered tasks by task's key, so lookups by key
+ * do not have to scan the registered tasks. A task and its execution are kept
+ * together in one entry, which is only replaced or removed as a whole, so a
+ * lookup by key never sees a task without its execution.
+ * <p>
+ * The key is the unique identifier of a task: a task is registered only
+ * while it is equal to the task registered with its key.
+ *
+ * @author Vitalii_Kim
+ *
+ * @param <E>
+ *            the type of execution
+ */
+class TaskRegistry<E extends Execution> {
+
+	private final ConcurrentMap<Object, Registration<E>> registrations;
+
+	TaskRegistry() {
+		registrations = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Associates the specified execution with the specified task, replacing
+	 * the registration of an equal task.
+	 *
+	 * @param task
+	 *            the task to register
+	 * @param execution
+	 *            the execution of the task
+	 * @return the replaced execution of the task, or {@code null}
+	 * @throws IllegalArgumentException
+	 *             if the key is registered by a task of another class
+	 */
+	<K, V> E put(AbstractTask<K, V> task, E execution) {
+		Preconditions.checkNotNull(task);
+		Preconditions.checkNotNull(execution);
+		Registration<E> registration = new Registration<>(task, execution);
+		for (;;) {
+			Registration<E> registered = registrations.get(task.getKey());
+			if (registered == null) {
+				if (registrations.putIfAbsent(task.getKey(), registration) == null) {
+					return null;
+				}
+				continue;
+			}
+			checkRegisteredBy(registered, task);
+			if (registrations.replace(task.getKey(), registered, registration)) {
+				return registered.execution;
+			}
+		}
+	}
+
+	/**
+	 * Associates the specified execution with the specified task unless its
+	 * key is already registered. Concurrent callers registering the same task
+	 * agree on a single execution.
+	 *
+	 * @param task
+	 *            the task to register
+	 * @param execution
+	 *            the execution of the task
+	 * @return the execution the task is already registered with, or
+	 *         {@code null} if the specified execution has been registered
+	 * @throws IllegalArgumentException
+	 *             if the key is registered by a task of another class
+	 */
+	<K, V> E putIfAbsent(AbstractTask<K, V> task, E execution) {
+		Preconditions.checkNotNull(task);
+		Preconditions.checkNotNull(execution);
+		// the plain lookup keeps registered keys off the bin lock
+		Registration<E> registered = registrations.get(task.getKey());
+		if (registered == null) {
+			registered = registrations.putIfAbsent(task.getKey(), new Registration<>(task, execution));
+			if (registered == null) {
+				return null;
+			}
+		}
+		checkRegisteredBy(registered, task);
+		return registered.execution;
+	}
+
+	private static <K, V> void checkRegisteredBy(Registration<?> registered, AbstractTask<K, V> task) {
+		if (!registered.task.equals(task)) {
+			throw new IllegalArgumentException(String.format("Key is registered by another task [key=%s, task=%s]",
+					task.getKey(), registered.task.getClass().getName()));
+		}
+	}
+
+	/**
+	 * Returns the execution of the specified task while this very instance is
+	 * registered, rather than an equal one. The task and its execution are
+	 * read together, so the execution can't belong to a replacing
+	 * registration.
+	 *
+	 * @param task
+	 *            the registered instance
+	 * @return the execution or {@code null}
+	 */
+	<K, V> E getRegistered(AbstractTask<K, V> task) {
+		Preconditions.checkNotNull(task);
+		Registration<E> registration = registrations.get(task.getKey());
+		return registration != null && registration.task == task ? registration.execution : null;
+	}
+
+	<K, V> E get(AbstractTask<K, V> task) {
+		Preconditions.checkNotNull(task);
+		Registration<E> registration = registrations.get(task.getKey());
+		return registration != null && registration.task.equals(task) ? registration.execution : null;
+	}
+
+	/**
+	 * Removes the registration of the specified task. The registration of an
+	 * other task with an equal key is kept.
+	 *
+	 * @param task
+	 *            the task to remove
+	 * @return the removed execution, or {@code null}
+	 */
+	<K, V> E remove(AbstractTask<K, V> task) {
+		Preconditions.checkNotNull(task);
+		for (;;) {
+			Registration<E> registration = registrations.get(task.getKey());
+			if (registration == null || !registration.task.equals(task)) {
+				return null;
+			}
+			if (registrations.remove(task.getKey(), registration)) {
+				return registration.execution;
+			}
+		}
+	}
+
+	/**
+	 * Removes the specified task only while it is registered with the
+	 * specified execution, so a newer registration of the task is kept.
+	 *
+	 * @param task
+	 *            the task to remove
+	 * @param execution
+	 *            the execution the task is expected to be registered with
+	 * @return {@code true} if the task has been removed
+	 */
+	<K, V> boolean remove(AbstractTask<K, V> task, E execution) {
+		Preconditions.checkNotNull(task);
+		Registration<E> registration = registrations.get(task.getKey());
+		return registration != null && registration.execution == execution && registration.task.equals(task)
+				&& registrations.remove(task.getKey(), registration);
+	}
+
+	/**
+	 * Returns the registered task with the specified key.
+	 *
+	 * @param key
+	 *            unique identifier of task
+	 * @return the task or {@code null} if there is no registered task with the
+	 *         specified {@code key}
+	 */
+	@SuppressWarnings("unchecked")
+	<K, V> AbstractTask<K, V> getTask(K key) {
+		Preconditions.checkNotNull(key);
+		Registration<E> registration = registrations.get(key);
+		return registration == null ? null : (AbstractTask<K, V>) registration.task;
+	}
+
+	/**
+	 * Returns the execution of the registered task with the specified key.
+	 *
+	 * @param key
+	 *            unique identifier of task
+	 * @return the execution or {@code null} if there is no registered task with
+	 *         the specified {@code key}
+	 */
+	<K> E getExecution(K key) {
+		Preconditions.checkNotNull(key);
+		Registration<E> registration = registrations.get(key);
+		return registration == null ? null : registration.execution;
+	}
+
+	int size() {
+		return registrations.size();
+	}
+
+	/**
+	 * The registered task together with its execution. Entries are compared
+	 * by identity, so a conditional removal never removes a newer
+	 * registration of an equal task.
+	 */
+	private static final class Registration<E> {
+		private final AbstractTask<?, ?> task;
+		private final E execution;
+
+		private Registration(AbstractTask<?, ?> task, E execution) {
+			this.task = task;
+			this.execution = execution;
+		}
+	}
+}
@@ -0,0 +1,523 @@
+package org.jongshin.executor.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+import org.jongshin.executor.task.TaskPriority;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * The {@link ScheduledExecutorService} backed by a hashed hierarchical timing
+ * wheel. Scheduling and cancellation cost O(1): they only hand the timeout
+ * over to a lock-free queue, which is drained by the single timer thread.
+ * Expired actions are run by a fixed pool of worker threads. Actions waiting
+ * for a worker are taken in order of the {@link TaskPriority} they carry.
+ *
+ * <p>
+ * The wheel has {@value #LEVELS} levels of {@value #WHEEL_SIZE} slots. The
+ * slots of the first level are one tick wide, every next level is
+ * {@value #WHEEL_SIZE} times coarser. Timeouts of a coarse slot are cascaded
+ * to finer levels, when the finer level completes a revolution. Actions fire
+ * with the precision of one tick.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+public class TimingWheelScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+	private static final Logger LOGGER = Logger.getLogger(TimingWheelScheduler.class);
+
+	private static final int WHEEL_BITS = 8;
+	private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+	private static final int LEVELS = 4;
+	private static final long MAX_DELTA = (1L << (WHEEL_BITS * LEVELS)) - 1;
+	private static final long DEFAULT_PRIORITY_AGING_SECONDS = 1;
+
+	private static final int WAITING = 0;
+	private static final int RUNNING = 1;
+	private static final int CANCELED = 2;
+	private static final int DONE = 3;
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<WheelTimeout> STATE_UPDATER = AtomicIntegerFieldUpdater
+			.newUpdater(WheelTimeout.class, "state");
+
+	private final long tickNanos;
+	private final long startNanos;
+	private final Bucket[][] wheels;
+	private final Queue<WheelTimeout<?>> pendingTimeouts;
+	private final Queue<WheelTimeout<?>> canceledTimeouts;
+	private final ExecutorService workers;
+	private final Thread timerThread;
+	private final AtomicInteger scheduledCount;
+	private volatile boolean shutdown;
+	private long currentTick;
+
+	/**
+	 * @param tickDuration
+	 *            the duration of one tick, which is the precision of the
+	 *            scheduler
+	 * @param timeUnit
+	 *            the time unit of {@code tickDuration}
+	 * @param workerThreads
+	 *            the number of threads, which run expired actions
+	 *
+	 * @throws IllegalArgumentException
+	 *             if
+	 *             <li>{@code tickDuration} <= 0</li>
+	 *             <li>{@code workerThreads} <= 0</li>
+	 * @throws NullPointerException
+	 *             if {@code timeUnit} is {@code null}
+	 */
+	public TimingWheelScheduler(long tickDuration, TimeUnit timeUnit, int workerThreads) {
+		this(tickDuration, timeUnit, workerThreads, DEFAULT_PRIORITY_AGING_SECONDS, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Creates the scheduler, which runs expired actions in order of their
+	 * priority, when they wait for a worker.
+	 * 
+	 * @param tickDuration
+	 *            the duration of one tick, which is the precision of the
+	 *            scheduler
+	 * @param timeUnit
+	 *            the time unit of {@code tickDuration}
+	 * @param workerThreads
+	 *            the number of threads, which run expired actions
+	 * @param priorityAging
+	 *            the waiting time, which raises an expired action by one
+	 *            priority level
+	 * @param agingTimeUnit
+	 *            the time unit of {@code priorityAging}
+	 *
+	 * @throws IllegalArgumentException
+	 *             if
+	 *             <li>{@code tickDuration} <= 0</li>
+	 *             <li>{@code workerThreads} <= 0</li>
+	 *             <li>{@code priorityAging} <= 0</li>
+	 * @throws NullPointerException
+	 *             if
+	 *             <li>{@code timeUnit} is {@code null}</li>
+	 *             <li>{@code agingTimeUnit} is {@code null}</li>
+	 */
+	public TimingWheelScheduler(long tickDuration, TimeUnit timeUnit, int workerThreads, long priorityAging,
+			TimeUnit agingTimeUnit) {
+		Preconditions.checkArgument(tickDuration > 0, "Illegal tickDuration=%s", tickDuration);
+		Preconditions.checkNotNull(timeUnit, "timeUnit is null");
+		Preconditions.checkArgument(workerThreads > 0, "Illegal workerThreads=%s", workerThreads);
+		Preconditions.checkArgument(priorityAging > 0, "Illegal priorityAging=%s", priorityAging);
+		Preconditions.checkNotNull(agingTimeUnit, "agingTimeUnit is null");
+		tickNanos = Math.max(1, timeUnit.toNanos(tickDuration));
+		wheels = new Bucket[LEVELS][WHEEL_SIZE];
+		for (Bucket[] wheel : wheels) {
+			for (int i = 0; i < WHEEL_SIZE; i++) {
+				wheel[i] = new Bucket();
+			}
+		}
+		pendingTimeouts = new ConcurrentLinkedQueue<>();
+		canceledTimeouts = new ConcurrentLinkedQueue<>();
+		scheduledCount = new AtomicInteger();
+		workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+				new PriorityTaskQueue(Integer.MAX_VALUE, agingTimeUnit.toNanos(priorityAging)),
+				new ThreadFactoryBuilder().setNameFormat("timing-wheel-worker-%d").build());
+		startNanos = System.nanoTime();
+		timerThread = new Thread(this::runTimer, "timing-wheel-timer");
+		timerThread.start();
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+		Preconditions.checkNotNull(command);
+		Preconditions.checkNotNull(unit);
+		return enqueue(new WheelTimeout<>(Executors.callable(command), deadline(delay, unit), 0,
+				PriorityTaskQueue.priorityOf(command)));
+	}
+
+	@Override
+	public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+		Preconditions.checkNotNull(callable);
+		Preconditions.checkNotNull(unit);
+		return enqueue(
+				new WheelTimeout<>(callable, deadline(delay, unit), 0, PriorityTaskQueue.priorityOf(callable)));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+		Preconditions.checkNotNull(command);
+		Preconditions.checkNotNull(unit);
+		Preconditions.checkArgument(period > 0, "Illegal period=%s", period);
+		return enqueue(new WheelTimeout<>(Executors.callable(command), deadline(initialDelay, unit),
+				unit.toNanos(period), PriorityTaskQueue.priorityOf(command)));
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+			TimeUnit unit) {
+		Preconditions.checkNotNull(command);
+		Preconditions.checkNotNull(unit);
+		Preconditions.checkArgument(delay > 0, "Illegal delay=%s", delay);
+		return enqueue(new WheelTimeout<>(Executors.callable(command), deadline(initialDelay, unit),
+				-unit.toNanos(delay), PriorityTaskQueue.priorityOf(command)));
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		schedule(command, 0, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void shutdown() {
+		shutdown = true;
+		LockSupport.unpark(timerThread);
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		shutdown();
+		List<Runnable> pending = new ArrayList<>(workers.shutdownNow());
+		pending.addAll(pendingTimeouts);
+		pendingTimeouts.clear();
+		return pending;
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return shutdown && !timerThread.isAlive() && workers.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		timerThread.join(Math.max(1, unit.toMillis(timeout)));
+		return workers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+				&& !timerThread.isAlive();
+	}
+
+	/**
+	 * Returns the number of actions waiting in the wheel.
+	 */
+	public int getScheduledCount() {
+		return scheduledCount.get();
+	}
+
+	private long deadline(long delay, TimeUnit unit) {
+		return System.nanoTime() + Math.max(0, unit.toNanos(delay));
+	}
+
+	private <V> WheelTimeout<V> enqueue(WheelTimeout<V> timeout) {
+		if (shutdown) {
+			throw new RejectedExecutionException("Scheduler has been shut down");
+		}
+		pendingTimeouts.add(timeout);
+		return timeout;
+	}
+
+	private void runTimer() {
+		while (!shutdown) {
+			long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+			while (currentTick < targetTick) {
+				processTick(currentTick + 1);
+				currentTick++;
+			}
+			LockSupport.parkNanos(this, startNanos + (currentTick + 1) * tickNanos - System.nanoTime());
+		}
+		workers.shutdown();
+	}
+
+	private void processTick(long tick) {
+		removeCanceled();
+		transferPending(tick);
+		cascade(tick);
+		Bucket bucket = wheels[0][(int) (tick & WHEEL_MASK)];
+		WheelTimeout<?> timeout;
+		while ((timeout = bucket.poll()) != null) {
+			scheduledCount.decrementAndGet();
+			fire(timeout);
+		}
+	}
+
+	private void removeCanceled() {
+		WheelTimeout<?> timeout;
+		while ((timeout = canceledTimeouts.poll()) != null) {
+			if (timeout.bucket != null) {
+				timeout.bucket.remove(timeout);
+				scheduledCount.decrementAndGet();
+			}
+		}
+	}
+
+	private void transferPending(long tick) {
+		WheelTimeout<?> timeout;
+		while ((timeout = pendingTimeouts.poll()) != null) {
+			if (timeout.state == CANCELED) {
+				continue;
+			}
+			long deadlineTick = deadlineTick(timeout);
+			if (deadlineTick < tick) {
+				fire(timeout);
+			} else {
+				place(timeout, deadlineTick, tick);
+				scheduledCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Moves the timeouts of coarse slots, which begin at the specified tick, to
+	 * finer levels.
+	 */
+	private void cascade(long tick) {
+		for (int level = 1; level < LEVELS; level++) {
+			int shift = WHEEL_BITS * level;
+			if ((tick & ((1L << shift) - 1)) != 0) {
+				return;
+			}
+			Bucket bucket = wheels[level][(int) ((tick >>> shift) & WHEEL_MASK)];
+			WheelTimeout<?> timeout;
+			while ((timeout = bucket.poll()) != null) {
+				place(timeout, deadlineTick(timeout), tick);
+			}
+		}
+	}
+
+	/**
+	 * Puts the timeout into the slot of the finest level, which covers its
+	 * deadline relatively to the specified tick. Deadlines beyond the range of
+	 * the wheel are put to the last slot of the coarsest level and placed again
+	 * when it is cascaded.
+	 */
+	private void place(WheelTimeout<?> timeout, long deadlineTick, long tick) {
+		long delta = deadlineTick - tick;
+		if (delta > MAX_DELTA) {
+			deadlineTick = tick + MAX_DELTA;
+			delta = MAX_DELTA;
+		}
+		int level = 0;
+		while (delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+			level++;
+		}
+		wheels[level][(int) ((deadlineTick >>> (WHEEL_BITS * level)) & WHEEL_MASK)].add(timeout);
+	}
+
+	private long deadlineTick(WheelTimeout<?> timeout) {
+		long elapsed = timeout.deadlineNanos - startNanos;
+		// rounds up, so an action never fires before its deadline
+		return elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+	}
+
+	private void fire(WheelTimeout<?> timeout) {
+		try {
+			workers.execute(timeout);
+		} catch (RejectedExecutionException e) {
+			LOGGER.warn(String.format("Scheduled action has been dropped on shutdown [timeout=%s]", timeout));
+		}
+	}
+
+	/**
+	 * The doubly linked list of timeouts. Accessed only by the timer thread.
+	 */
+	private static final class Bucket {
+		private WheelTimeout<?> head;
+		private WheelTimeout<?> tail;
+
+		void add(WheelTimeout<?> timeout) {
+			timeout.bucket = this;
+			timeout.prev = tail;
+			timeout.next = null;
+			if (tail == null) {
+				head = timeout;
+			} else {
+				tail.next = timeout;
+			}
+			tail = timeout;
+		}
+
+		void remove(WheelTimeout<?> timeout) {
+			if (timeout.prev == null) {
+				head = timeout.next;
+			} else {
+				timeout.prev.next = timeout.next;
+			}
+			if (timeout.next == null) {
+				tail = timeout.prev;
+			} else {
+				timeout.next.prev = timeout.prev;
+			}
+			timeout.bucket = null;
+			timeout.prev = null;
+			timeout.next = null;
+		}
+
+		WheelTimeout<?> poll() {
+			WheelTimeout<?> timeout = head;
+			if (timeout != null) {
+				remove(timeout);
+			}
+			return timeout;
+		}
+	}
+
+	/**
+	 * The scheduled action. A positive period means fixed rate, a negative one
+	 * means fixed delay, zero means one-shot.
+	 */
+	private final class WheelTimeout<V> implements ScheduledFuture<V>, Runnable, Prioritized {
+		private final Callable<V> callable;
+		private final long period;
+		private final TaskPriority priority;
+		private volatile long deadlineNanos;
+		// not private, so the updater may access it
+		volatile int state;
+		private volatile boolean awaited;
+		private Object outcome;
+		private Bucket bucket;
+		private WheelTimeout<?> prev;
+		private WheelTimeout<?> next;
+
+		WheelTimeout(Callable<V> callable, long deadlineNanos, long period, TaskPriority priority) {
+			this.callable = callable;
+			this.deadlineNanos = deadlineNanos;
+			this.period = period;
+			this.priority = priority;
+		}
+
+		@Override
+		public TaskPriority getPriority() {
+			return priority;
+		}
+
+		@Override
+		public void run() {
+			if (!STATE_UPDATER.compareAndSet(this, WAITING, RUNNING)) {
+				return;
+			}
+			try {
+				V result = callable.call();
+				if (period == 0) {
+					complete(result);
+				} else if (STATE_UPDATER.compareAndSet(this, RUNNING, WAITING)) {
+					deadlineNanos = period > 0 ? deadlineNanos + period : System.nanoTime() - period;
+					enqueue(this);
+				}
+			} catch (Throwable e) {
+				complete(new ExecutionException(e));
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			while (true) {
+				int current = state;
+				if (current == DONE || current == CANCELED) {
+					return false;
+				}
+				if (STATE_UPDATER.compareAndSet(this, current, CANCELED)) {
+					if (current == WAITING) {
+						canceledTimeouts.add(this);
+					}
+					signal();
+					return true;
+				}
+			}
+		}
+
+		private void complete(Object outcome) {
+			this.outcome = outcome;
+			if (STATE_UPDATER.compareAndSet(this, RUNNING, DONE)) {
+				signal();
+			}
+		}
+
+		private void signal() {
+			if (awaited) {
+				synchronized (this) {
+					notifyAll();
+				}
+			}
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return state == CANCELED;
+		}
+
+		@Override
+		public boolean isDone() {
+			return state >= CANCELED;
+		}
+
+		@Override
+		public V get() throws InterruptedException, ExecutionException {
+			try {
+				return get(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			} catch (TimeoutException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			synchronized (this) {
+				awaited = true;
+				while (state < CANCELED) {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						throw new TimeoutException();
+					}
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+			}
+			if (state == CANCELED) {
+				throw new CancellationException();
+			}
+			if (outcome instanceof ExecutionException) {
+				throw (ExecutionException) outcome;
+			}
+			return (V) outcome;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+
+		@Override
+		public String toString() {
+			return "WheelTimeout [callable=" + callable + ", period=" + period + ", state=" + state + "]";
+		}
+	}
+}
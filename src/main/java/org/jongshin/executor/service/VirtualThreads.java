@@ -0,0 +1,89 @@
+package org.jongshin.executor.service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.jongshin.executor.data.ProcessorException;
+
+/**
+ * Creates virtual threads through reflection, so the project still compiles
+ * for Java 8 and uses virtual threads when it runs on Java 21 or later.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+final class VirtualThreads {
+
+	private static final Method OF_VIRTUAL;
+	private static final Method NAME;
+	private static final Method FACTORY;
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method factory = null;
+		Method newThreadPerTaskExecutor = null;
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			name = builderClass.getMethod("name", String.class, long.class);
+			factory = builderClass.getMethod("factory");
+			newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+		} catch (ReflectiveOperationException e) {
+			ofVirtual = null;
+		}
+		OF_VIRTUAL = ofVirtual;
+		NAME = name;
+		FACTORY = factory;
+		NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+	}
+
+	private VirtualThreads() {
+	}
+
+	static boolean isSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Returns the factory of virtual threads named {@code prefix} followed by
+	 * a sequence number.
+	 * 
+	 * @throws ProcessorException
+	 *             if virtual threads are not supported by the runtime
+	 */
+	static ThreadFactory newThreadFactory(String prefix) {
+		checkSupported();
+		try {
+			Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+			return (ThreadFactory) FACTORY.invoke(builder);
+		} catch (ReflectiveOperationException e) {
+			throw new ProcessorException("Can't create virtual thread factory", e);
+		}
+	}
+
+	/**
+	 * Returns the executor, which starts a new virtual thread for every task.
+	 * 
+	 * @throws ProcessorException
+	 *             if virtual threads are not supported by the runtime
+	 */
+	static ExecutorService newThreadPerTaskExecutor(String prefix) {
+		ThreadFactory threadFactory = newThreadFactory(prefix);
+		try {
+			return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+		} catch (ReflectiveOperationException e) {
+			throw new ProcessorException("Can't create virtual thread executor", e);
+		}
+	}
+
+	private static void checkSupported() {
+		if (!isSupported()) {
+			throw new ProcessorException(String.format("Virtual threads are not supported [java.version=%s]",
+					System.getProperty("java.version")));
+		}
+	}
+}
@@ -15,7 +15,8 @@ import com.google.common.base.Preconditions;
 public abstract class AbstractTask<K, V> implements ITask<K, V> {
 
 	private final K key;
-	private boolean canceled;
+	private final TaskPriority priority;
+	private volatile boolean canceled;
 
 	/**
 	 * @param key
@@ -25,8 +26,25 @@ public abstract class AbstractTask<K, V> implements ITask<K, V> {
 	 *             if {@code key} has {@code null} value
 	 */
 	AbstractTask(K key) {
+		this(key, TaskPriority.NORMAL);
+	}
+
+	/**
+	 * @param key
+	 *            Unique identifier of task
+	 * @param priority
+	 *            the priority of task among the tasks waiting for a worker
+	 * 
+	 * @throws NullPointerException
+	 *             if
+	 *             <li>{@code key} has {@code null} value</li>
+	 *             <li>{@code priority} has {@code null} value</li>
+	 */
+	AbstractTask(K key, TaskPriority priority) {
 		Preconditions.checkNotNull(key, "Illegal key");
+		Preconditions.checkNotNull(priority, "Illegal priority");
 		this.key = key;
+		this.priority = priority;
 	}
 
 	@Override
@@ -34,6 +52,26 @@ public abstract class AbstractTask<K, V> implements ITask<K, V> {
 		return key;
 	}
 
+	public TaskPriority getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Returns the run time allowed to the task in milliseconds. The default
+	 * {@code 0} leaves the deadline to the configuration of the processor.
+	 */
+	public long getTimeoutMillis() {
+		return 0;
+	}
+
+	/**
+	 * Returns the policy, by which a failed run of the task is retried. The
+	 * task isn't retried by default.
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return RetryPolicy.NONE;
+	}
+
 	public boolean isCanceled() {
 		return canceled;
 	}
@@ -1,7 +1,9 @@
 package org.jongshin.executor.task;
 
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.base.Preconditions;
 
 /**
  * Used for process several task as one and join their results.
@@ -15,11 +17,52 @@ import java.util.concurrent.CopyOnWriteArraySet;
  */
 public class AggregatedTask<K, V> extends AbstractTask<K, V> {
 
+	private static final int UNBOUNDED_PARALLELISM = Integer.MAX_VALUE;
+
 	private Set<SingleTask<K, V>> tasks;
+	private final int parallelism;
 
 	public AggregatedTask(K key) {
-		super(key);
-		tasks = new CopyOnWriteArraySet<>();
+		this(key, UNBOUNDED_PARALLELISM);
+	}
+
+	/**
+	 * @param key
+	 *            Unique identifier of task
+	 * @param parallelism
+	 *            the maximum number of inner tasks, which may run at the same
+	 *            time
+	 * 
+	 * @throws NullPointerException
+	 *             if {@code key} has {@code null} value
+	 * @throws IllegalArgumentException
+	 *             if {@code parallelism} <= 0
+	 */
+	public AggregatedTask(K key, int parallelism) {
+		this(key, parallelism, TaskPriority.NORMAL);
+	}
+
+	/**
+	 * @param key
+	 *            Unique identifier of task
+	 * @param parallelism
+	 *            the maximum number of inner tasks, which may run at the same
+	 *            time
+	 * @param priority
+	 *            the priority of task among the tasks waiting for a worker
+	 * 
+	 * @throws NullPointerException
+	 *             if
+	 *             <li>{@code key} has {@code null} value</li>
+	 *             <li>{@code priority} has {@code null} value</li>
+	 * @throws IllegalArgumentException
+	 *             if {@code parallelism} <= 0
+	 */
+	public AggregatedTask(K key, int parallelism, TaskPriority priority) {
+		super(key, priority);
+		Preconditions.checkArgument(parallelism > 0, "Illegal parallelism=%s", parallelism);
+		this.parallelism = parallelism;
+		tasks = ConcurrentHashMap.newKeySet();
 	}
 
 	public boolean addTask(SingleTask<K, V> task) {
@@ -33,4 +76,8 @@ public class AggregatedTask<K, V> extends AbstractTask<K, V> {
 	public Set<SingleTask<K, V>> getTasks() {
 		return tasks;
 	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
 }
@@ -0,0 +1,89 @@
+package org.jongshin.executor.task;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.jongshin.executor.data.CancellationToken;
+import org.jongshin.executor.data.ProcessorException;
+
+/**
+ * The task, which computation may be shared with other tasks of the same
+ * batch group. Executed batchable tasks are collected until
+ * {@link #getMaxBatchSize()} tasks have been submitted or
+ * {@link #getMaxBatchDelayMillis()} has elapsed since the first of them,
+ * whichever comes first, and then their keys are processed by one call of
+ * {@link #processBatch(List)}. Every task is completed with the result of its
+ * own key.
+ * 
+ * @author Vitalii_Kim
+ *
+ * @param <K>
+ *            the type of key
+ * @param <V>
+ *            the type of computation result
+ */
+public abstract class BatchableTask<K, V> extends SingleTask<K, V> {
+
+	public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+	public static final long DEFAULT_MAX_BATCH_DELAY_MILLIS = 10;
+
+	protected BatchableTask(K key) {
+		super(key);
+	}
+
+	protected BatchableTask(K key, TaskPriority priority) {
+		super(key, priority);
+	}
+
+	/**
+	 * Computes the results of the specified keys. A key absent from the
+	 * returned map fails its task, an exception fails the tasks of all keys.
+	 * {@link CancellationToken#current()} is the token of the whole batch,
+	 * which is canceled only once the tasks of all keys are canceled.
+	 * 
+	 * @param keys
+	 *            the keys of the batched tasks, never empty
+	 * @return the results by keys
+	 */
+	public abstract Map<K, V> processBatch(List<K> keys);
+
+	/**
+	 * Processes the key of the task as a batch of one, when the task runs
+	 * alone, e.g. when it is scheduled.
+	 * 
+	 * @throws ProcessorException
+	 *             if {@link #processBatch(List)} returns no result for the key
+	 */
+	@Override
+	public final V process() {
+		Map<K, V> results = processBatch(Collections.singletonList(getKey()));
+		if (!results.containsKey(getKey())) {
+			throw new ProcessorException(String.format("Batch has returned no result for key=%s", getKey()));
+		}
+		return results.get(getKey());
+	}
+
+	/**
+	 * Returns the identifier of tasks, which may be processed together. Tasks
+	 * of the same class are batched together by default.
+	 */
+	public Object getBatchGroup() {
+		return getClass();
+	}
+
+	/**
+	 * Returns the number of tasks, which triggers processing of a batch.
+	 */
+	public int getMaxBatchSize() {
+		return DEFAULT_MAX_BATCH_SIZE;
+	}
+
+	/**
+	 * Returns the maximum time the first task of a batch waits for
+	 * processing.
+	 */
+	public long getMaxBatchDelayMillis() {
+		return DEFAULT_MAX_BATCH_DELAY_MILLIS;
+	}
+}
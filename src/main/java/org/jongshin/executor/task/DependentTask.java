@@ -0,0 +1,59 @@
+package org.jongshin.executor.task;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The {@link SingleTask}, which consumes the results of the tasks it depends
+ * on, when it is executed as a node of a task graph.
+ * 
+ * @author Vitalii_Kim
+ *
+ * @param <K>
+ *            the type of key
+ * @param <V>
+ *            the type of computation result
+ */
+public abstract class DependentTask<K, V> extends SingleTask<K, V> {
+
+	private volatile Map<K, Object> inputs;
+
+	protected DependentTask(K key) {
+		this(key, TaskPriority.NORMAL);
+	}
+
+	protected DependentTask(K key, TaskPriority priority) {
+		super(key, priority);
+		inputs = Collections.emptyMap();
+	}
+
+	/**
+	 * Sets the results of upstream tasks by their keys. Called before the task
+	 * is processed.
+	 * 
+	 * @param inputs
+	 *            the results of upstream tasks
+	 * @throws NullPointerException
+	 *             if {@code inputs} is {@code null}
+	 */
+	public void setInputs(Map<K, Object> inputs) {
+		Preconditions.checkNotNull(inputs, "inputs is null");
+		this.inputs = Collections.unmodifiableMap(inputs);
+	}
+
+	@Override
+	public final V process() {
+		return process(inputs);
+	}
+
+	/**
+	 * Computes the result from the results of upstream tasks.
+	 * 
+	 * @param inputs
+	 *            the results of upstream tasks by their keys
+	 * @return the computation result
+	 */
+	protected abstract V process(Map<K, Object> inputs);
+}
@@ -0,0 +1,24 @@
+package org.jongshin.executor.task;
+
+/**
+ * Implemented by the idempotent tasks, which computation result may be reused
+ * by the tasks with an equal key, when the result cache of the processor is
+ * enabled.
+ * 
+ * @author Vitalii_Kim
+ *
+ * @param <K>
+ *            the type of key
+ * @param <V>
+ *            the type of computation result
+ */
+public interface ICacheableTask<K, V> extends ITask<K, V> {
+
+	/**
+	 * Returns how long the computed result stays reusable, the result isn't
+	 * cached if the value is not positive.
+	 * 
+	 * @return the time to live of the result in milliseconds
+	 */
+	long getTimeToLiveMillis();
+}
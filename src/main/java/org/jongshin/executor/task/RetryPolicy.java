@@ -0,0 +1,177 @@
+package org.jongshin.executor.task;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.jongshin.executor.data.TaskCanceledException;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Defines how a failed task is retried: the maximum number of attempts, the
+ * exponentially growing backoff between them with random jitter, and the
+ * failures worth retrying.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+public final class RetryPolicy {
+
+	/**
+	 * The policy, which never retries.
+	 */
+	public static final RetryPolicy NONE = builder().maxAttempts(1).build();
+
+	private static final int DEFAULT_MAX_ATTEMPTS = 3;
+	private static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 100;
+	private static final long DEFAULT_MAX_BACKOFF_MILLIS = 10000;
+	private static final double DEFAULT_MULTIPLIER = 2;
+	private static final double DEFAULT_JITTER = 0.2;
+
+	private final int maxAttempts;
+	private final long initialBackoffNanos;
+	private final long maxBackoffNanos;
+	private final double multiplier;
+	private final double jitter;
+	private final Predicate<Throwable> retryable;
+
+	private RetryPolicy(Builder builder) {
+		this.maxAttempts = builder.maxAttempts;
+		this.initialBackoffNanos = builder.initialBackoffNanos;
+		this.maxBackoffNanos = builder.maxBackoffNanos;
+		this.multiplier = builder.multiplier;
+		this.jitter = builder.jitter;
+		this.retryable = builder.retryable;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Returns {@code true} if the task should be run again after the specified
+	 * failure of the specified attempt. A cancellation is never retried.
+	 *
+	 * @param attempt
+	 *            the number of the failed attempt, starting with {@code 1}
+	 * @param cause
+	 *            the failure of the attempt
+	 */
+	public boolean shouldRetry(int attempt, Throwable cause) {
+		return attempt < maxAttempts && !(cause instanceof TaskCanceledException) && retryable.test(cause);
+	}
+
+	/**
+	 * Returns the backoff before the attempt following the specified one. The
+	 * backoff grows by the multiplier with every attempt up to the maximum,
+	 * and is then shortened by a random part of up to the jitter, so tasks
+	 * failed together don't retry together.
+	 *
+	 * @param attempt
+	 *            the number of the failed attempt, starting with {@code 1}
+	 * @return the backoff in nanoseconds
+	 */
+	public long getBackoffNanos(int attempt) {
+		double backoff = initialBackoffNanos * Math.pow(multiplier, attempt - 1);
+		double cappedBackoff = Math.min(backoff, maxBackoffNanos);
+		return (long) (cappedBackoff * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public String toString() {
+		return "RetryPolicy [maxAttempts=" + maxAttempts + ", initialBackoffNanos=" + initialBackoffNanos
+				+ ", maxBackoffNanos=" + maxBackoffNanos + ", multiplier=" + multiplier + ", jitter=" + jitter + "]";
+	}
+
+	/**
+	 * Builder of {@link RetryPolicy}.
+	 */
+	public static final class Builder {
+		private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+		private long initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_INITIAL_BACKOFF_MILLIS);
+		private long maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_BACKOFF_MILLIS);
+		private double multiplier = DEFAULT_MULTIPLIER;
+		private double jitter = DEFAULT_JITTER;
+		private Predicate<Throwable> retryable = cause -> true;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the maximum number of attempts including the first one.
+		 *
+		 * @throws IllegalArgumentException
+		 *             if {@code maxAttempts} <= 0
+		 */
+		public Builder maxAttempts(int maxAttempts) {
+			Preconditions.checkArgument(maxAttempts > 0, "Illegal maxAttempts=%s", maxAttempts);
+			this.maxAttempts = maxAttempts;
+			return this;
+		}
+
+		/**
+		 * Sets the backoff before the second attempt and the maximum backoff.
+		 *
+		 * @throws IllegalArgumentException
+		 *             if
+		 *             <li>{@code initialBackoff} < 0</li>
+		 *             <li>{@code maxBackoff} < {@code initialBackoff}</li>
+		 * @throws NullPointerException
+		 *             if {@code timeUnit} is {@code null}
+		 */
+		public Builder backoff(long initialBackoff, long maxBackoff, TimeUnit timeUnit) {
+			Preconditions.checkArgument(initialBackoff >= 0, "Illegal initialBackoff=%s", initialBackoff);
+			Preconditions.checkArgument(maxBackoff >= initialBackoff, "Illegal maxBackoff=%s", maxBackoff);
+			Preconditions.checkNotNull(timeUnit, "timeUnit is null");
+			this.initialBackoffNanos = timeUnit.toNanos(initialBackoff);
+			this.maxBackoffNanos = timeUnit.toNanos(maxBackoff);
+			return this;
+		}
+
+		/**
+		 * Sets the factor, by which the backoff grows with every attempt.
+		 *
+		 * @throws IllegalArgumentException
+		 *             if {@code multiplier} < 1
+		 */
+		public Builder multiplier(double multiplier) {
+			Preconditions.checkArgument(multiplier >= 1, "Illegal multiplier=%s", multiplier);
+			this.multiplier = multiplier;
+			return this;
+		}
+
+		/**
+		 * Sets the largest part of the backoff, which may be randomly cut off.
+		 *
+		 * @throws IllegalArgumentException
+		 *             if {@code jitter} isn't in range [0, 1]
+		 */
+		public Builder jitter(double jitter) {
+			Preconditions.checkArgument(jitter >= 0 && jitter <= 1, "Illegal jitter=%s", jitter);
+			this.jitter = jitter;
+			return this;
+		}
+
+		/**
+		 * Sets the predicate, which selects the failures worth retrying. All
+		 * failures are retried by default.
+		 *
+		 * @throws NullPointerException
+		 *             if {@code retryable} is {@code null}
+		 */
+		public Builder retryOn(Predicate<Throwable> retryable) {
+			Preconditions.checkNotNull(retryable, "retryable is null");
+			this.retryable = retryable;
+			return this;
+		}
+
+		public RetryPolicy build() {
+			return new RetryPolicy(this);
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package org.jongshin.executor.task;
 
+import org.jongshin.executor.data.CancellationToken;
+
 /**
  * The implementation of {@link AbstractTask}.
  * 
@@ -16,6 +18,25 @@ public abstract class SingleTask<K, V> extends AbstractTask<K, V> {
 		super(key);
 	}
 
+	protected SingleTask(K key, TaskPriority priority) {
+		super(key, priority);
+	}
+
+	/**
+	 * Computes the result. A long running task should poll the token returned
+	 * by {@link #getCancellationToken()} and stop by throwing
+	 * {@link org.jongshin.executor.data.TaskCanceledException} once its
+	 * cancellation is requested.
+	 */
 	public abstract V process();
 
+	/**
+	 * Returns the cancellation token of the execution running in the current
+	 * thread, or {@link CancellationToken#NONE} if the task isn't run by the
+	 * processor.
+	 */
+	protected CancellationToken getCancellationToken() {
+		return CancellationToken.current();
+	}
+
 }
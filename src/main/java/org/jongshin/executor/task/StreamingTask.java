@@ -0,0 +1,287 @@
+package org.jongshin.executor.task;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+import org.jongshin.executor.data.CancellationToken;
+import org.jongshin.executor.data.TaskCanceledException;
+import org.jongshin.executor.oberservers.IStreamObserver;
+import org.jongshin.executor.oberservers.IStreamSubscription;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The task, which produces its result as a stream of elements instead of one
+ * value. Elements are handed to the {@link IStreamObserver}s of the task by
+ * {@link #emit(Object)} as soon as they are produced, so the task doesn't
+ * hold them and the observers may process them while the task is running.
+ * <p>
+ * The stream is paced by the demand of its observers: {@link #emit(Object)}
+ * waits until every subscribed observer has requested another element. The
+ * elements emitted without any subscribed observer are dropped. The task
+ * completes with the number of emitted elements, and is canceled once all of
+ * its observers have canceled their subscriptions.
+ * <p>
+ * Subscriptions last as long as the execution they have been made for. The
+ * processor ends them all once a run, which is not followed by another one,
+ * has finished, so a later execution of the same instance streams only to
+ * its own observers. A canceled subscription ends with the run: every run of
+ * a repeatable task drops the subscriptions canceled before it starts, and
+ * streams to the remaining observers, or to none.
+ *
+ * @author Vitalii_Kim
+ *
+ * @param <K>
+ *            the type of key
+ * @param <E>
+ *            the type of stream elements
+ */
+public abstract class StreamingTask<K, E> extends SingleTask<K, Long> {
+
+	private static final Logger LOGGER = Logger.getLogger(StreamingTask.class);
+
+	private final ReentrantLock lock;
+	private final Condition demanded;
+	private final Runnable wakeUp;
+	private volatile Subscription[] subscriptions;
+	private volatile CancellationToken runningToken;
+	private long emitted;
+
+	protected StreamingTask(K key) {
+		this(key, TaskPriority.NORMAL);
+	}
+
+	protected StreamingTask(K key, TaskPriority priority) {
+		super(key, priority);
+		lock = new ReentrantLock();
+		demanded = lock.newCondition();
+		wakeUp = this::signalDemanded;
+		subscriptions = new Subscription[0];
+	}
+
+	/**
+	 * Produces the elements of the stream by calling {@link #emit(Object)}. A
+	 * cancellation stops the task in {@link #emit(Object)}, a task computing
+	 * long between elements should poll {@link #getCancellationToken()} as
+	 * well.
+	 */
+	protected abstract void stream();
+
+	/**
+	 * Runs {@link #stream()} and returns the number of emitted elements.
+	 */
+	@Override
+	public final Long process() {
+		CancellationToken cancellationToken = getCancellationToken();
+		dropCanceledSubscriptions();
+		runningToken = cancellationToken;
+		cancellationToken.addCallback(wakeUp);
+		emitted = 0;
+		try {
+			if (isStreamCanceled()) {
+				throw new TaskCanceledException("Stream has been canceled by its observers");
+			}
+			stream();
+			return emitted;
+		} finally {
+			cancellationToken.removeCallback(wakeUp);
+			runningToken = null;
+		}
+	}
+
+	/**
+	 * Hands the element to the subscribed observers, waiting until all of
+	 * them have demand for it.
+	 *
+	 * @param element
+	 *            the next element of the stream
+	 * @throws TaskCanceledException
+	 *             if the task has been canceled or interrupted while waiting
+	 */
+	protected final void emit(E element) {
+		CancellationToken cancellationToken = getCancellationToken();
+		Subscription[] current;
+		lock.lock();
+		try {
+			for (;;) {
+				cancellationToken.throwIfCancellationRequested();
+				current = subscriptions;
+				if (isStreamCanceled()) {
+					throw new TaskCanceledException("Stream has been canceled by its observers");
+				}
+				if (hasDemand(current)) {
+					break;
+				}
+				try {
+					demanded.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new TaskCanceledException("Task has been interrupted while waiting for demand");
+				}
+			}
+			for (Subscription subscription : current) {
+				subscription.takeDemand();
+			}
+		} finally {
+			lock.unlock();
+		}
+		emitted++;
+		for (Subscription subscription : current) {
+			subscription.deliver(element);
+		}
+	}
+
+	/**
+	 * Subscribes the observer to the elements emitted from now on and passes
+	 * it its subscription. The processor subscribes the
+	 * {@link IStreamObserver}s, which the task is executed or scheduled with.
+	 * Subscribing the same observer again has no effect.
+	 *
+	 * @param observer
+	 *            the observer to be subscribed
+	 * @throws NullPointerException
+	 *             if {@code observer} is {@code null}
+	 */
+	public void subscribe(IStreamObserver<? super E> observer) {
+		Preconditions.checkNotNull(observer, "observer is null");
+		Subscription subscription;
+		lock.lock();
+		try {
+			for (Subscription existing : subscriptions) {
+				if (existing.observer == observer) {
+					return;
+				}
+			}
+			subscription = new Subscription(this, observer);
+			Subscription[] extended = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+			extended[subscriptions.length] = subscription;
+			subscriptions = extended;
+		} finally {
+			lock.unlock();
+		}
+		observer.onSubscribe(subscription);
+	}
+
+	/**
+	 * Ends the subscriptions of all observers, which receive no elements of
+	 * later runs. The processor calls it once the last run of the execution
+	 * the observers have been subscribed for has finished.
+	 */
+	public void unsubscribeAll() {
+		lock.lock();
+		try {
+			subscriptions = new Subscription[0];
+			demanded.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void dropCanceledSubscriptions() {
+		lock.lock();
+		try {
+			// the array is read without the lock, so it is replaced rather than changed
+			subscriptions = Arrays.stream(subscriptions).filter(subscription -> !subscription.canceled)
+					.toArray(Subscription[]::new);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean hasDemand(Subscription[] current) {
+		for (Subscription subscription : current) {
+			if (!subscription.canceled && subscription.demand == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isStreamCanceled() {
+		Subscription[] current = subscriptions;
+		if (current.length == 0) {
+			return false;
+		}
+		for (Subscription subscription : current) {
+			if (!subscription.canceled) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void signalDemanded() {
+		lock.lock();
+		try {
+			demanded.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * The subscription of one observer, its demand is guarded by the lock of
+	 * the task.
+	 */
+	private static final class Subscription implements IStreamSubscription {
+		private final StreamingTask<?, ?> task;
+		@SuppressWarnings("rawtypes")
+		private final IStreamObserver observer;
+		private long demand;
+		private volatile boolean canceled;
+
+		private Subscription(StreamingTask<?, ?> task, @SuppressWarnings("rawtypes") IStreamObserver observer) {
+			this.task = task;
+			this.observer = observer;
+		}
+
+		@Override
+		public void request(long n) {
+			Preconditions.checkArgument(n > 0, "Illegal n=%s", n);
+			task.lock.lock();
+			try {
+				demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+				task.demanded.signalAll();
+			} finally {
+				task.lock.unlock();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			task.lock.lock();
+			try {
+				canceled = true;
+				task.demanded.signalAll();
+			} finally {
+				task.lock.unlock();
+			}
+			CancellationToken cancellationToken = task.runningToken;
+			if (cancellationToken != null && task.isStreamCanceled()) {
+				cancellationToken.cancel();
+			}
+		}
+
+		private void takeDemand() {
+			if (!canceled && demand != Long.MAX_VALUE) {
+				demand--;
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void deliver(Object element) {
+			if (canceled) {
+				return;
+			}
+			try {
+				observer.onNext(element);
+			} catch (RuntimeException e) {
+				LOGGER.error(String.format("Stream observer has failed, its subscription is canceled [key=%s]",
+						task.getKey()), e);
+				cancel();
+			}
+		}
+	}
+}
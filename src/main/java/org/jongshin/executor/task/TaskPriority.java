@@ -0,0 +1,13 @@
+package org.jongshin.executor.task;
+
+/**
+ * The priority of a task, which decides the order of tasks waiting for a
+ * worker. Waiting tasks age, so a task of lower priority is not delayed
+ * indefinitely by a stream of tasks of higher priority.
+ * 
+ * @author Vitalii_Kim
+ *
+ */
+public enum TaskPriority {
+	HIGH, NORMAL, LOW
+}
@@ -0,0 +1,85 @@
+package org.jongshin.executor.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Checks {@link CronExpression#nextFireMillis(long)} against fire times
+ * written as local times with their offset. A {@code null} fire time stands
+ * for {@link CronExpression#NEVER}.
+ *
+ * @author Vitalii_Kim
+ *
+ */
+@RunWith(Parameterized.class)
+public class CronExpressionTest {
+
+	private static final String UTC = "UTC";
+	private static final String NEW_YORK = "America/New_York";
+
+	@Parameters(name = "{0} in {1} after {2}")
+	public static Collection<Object[]> data() {
+		return Arrays.asList(new Object[][] {
+				// fields
+				{ "*/15 * * * *", UTC, "2026-01-01T00:07:30Z", "2026-01-01T00:15Z" },
+				{ "*/10 * * * * *", UTC, "2026-01-01T00:00:05.500Z", "2026-01-01T00:00:10Z" },
+				{ "0 9 * * MON-FRI", UTC, "2026-01-02T09:00Z", "2026-01-05T09:00Z" },
+				{ "@weekly", UTC, "2026-01-01T00:00Z", "2026-01-04T00:00Z" },
+				{ "0 0 1 * 7", UTC, "2026-01-01T00:00Z", "2026-01-04T00:00Z" },
+				// strictly after
+				{ "0 0 * * *", UTC, "2026-01-01T00:00Z", "2026-01-02T00:00Z" },
+				{ "0 0 * * *", UTC, "2025-12-31T23:59:59.999Z", "2026-01-01T00:00Z" },
+				// last days of month
+				{ "0 0 31 * *", UTC, "2026-04-01T00:00Z", "2026-05-31T00:00Z" },
+				{ "0 0 31 * *", UTC, "2026-01-31T00:00Z", "2026-03-31T00:00Z" },
+				{ "0 0 30 * *", UTC, "2026-01-30T00:00Z", "2026-03-30T00:00Z" },
+				{ "59 23 31 12 *", UTC, "2026-06-15T00:00Z", "2026-12-31T23:59Z" },
+				// Feb 29
+				{ "0 0 29 2 *", UTC, "2025-01-01T00:00Z", "2028-02-29T00:00Z" },
+				{ "0 0 29 2 *", UTC, "2096-03-01T00:00Z", "2104-02-29T00:00Z" },
+				{ "0 0 29 * *", UTC, "2027-01-29T00:00Z", "2027-03-29T00:00Z" },
+				{ "0 0 29 2 MON", UTC, "2026-02-01T00:00Z", "2026-02-02T00:00Z" },
+				// daylight saving gap, 02:00 - 03:00 doesn't exist
+				{ "30 2 * * *", NEW_YORK, "2026-03-07T03:00-05:00", "2026-03-08T03:30-04:00" },
+				{ "30 2 * * *", NEW_YORK, "2026-03-08T03:30-04:00", "2026-03-09T02:30-04:00" },
+				{ "0 * * * *", NEW_YORK, "2026-03-08T01:30-05:00", "2026-03-08T03:00-04:00" },
+				{ "0 * * * *", NEW_YORK, "2026-03-08T03:00-04:00", "2026-03-08T04:00-04:00" },
+				// daylight saving overlap, 01:00 - 02:00 is repeated
+				{ "30 1 * * *", NEW_YORK, "2026-11-01T00:00-04:00", "2026-11-01T01:30-04:00" },
+				{ "30 1 * * *", NEW_YORK, "2026-11-01T01:30-04:00", "2026-11-02T01:30-05:00" },
+				{ "0 * * * *", NEW_YORK, "2026-11-01T01:00-04:00", "2026-11-01T02:00-05:00" },
+				// never
+				{ "0 0 30 2 *", UTC, "2026-01-01T00:00Z", null },
+				{ "0 0 31 4,6,9,11 *", UTC, "2026-01-01T00:00Z", null } });
+	}
+
+	private final String expression;
+	private final String zone;
+	private final String after;
+	private final String expected;
+
+	public CronExpressionTest(String expression, String zone, String after, String expected) {
+		this.expression = expression;
+		this.zone = zone;
+		this.after = after;
+		this.expected = expected;
+	}
+
+	@Test
+	public void testNextFireMillis() {
+		CronExpression cronExpression = CronExpression.parse(expression, ZoneId.of(zone));
+		long afterMillis = OffsetDateTime.parse(after).toInstant().toEpochMilli();
+		long expectedMillis = expected == null ? CronExpression.NEVER
+				: OffsetDateTime.parse(expected).toInstant().toEpochMilli();
+		assertEquals(expectedMillis, cronExpression.nextFireMillis(afterMillis));
+	}
+}